@@ -0,0 +1,69 @@
+package com.studentmanager;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Startup load and full save of the data file, the work behind the GUI's
+// loadDataFromFile and saveDataToFile, for each snapshot format.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g"})
+public class PersistenceBenchmark {
+    @Param({"10000", "100000", "1000000", "10000000"})
+    int records;
+
+    // Format name; the generated harness cannot see the package-private enum
+    @Param({"CSV", "BINARY", "COMPACT"})
+    String formatName;
+
+    private SnapshotFormat format;
+    private StudentStore cohort;
+    private File loadFile;
+    private File saveFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        format = SnapshotFormat.valueOf(formatName);
+        cohort = SnapshotTool.syntheticCohort(records, 42);
+        loadFile = File.createTempFile("students-load", format.defaultFileName());
+        saveFile = File.createTempFile("students-save", format.defaultFileName());
+        format.write(cohort, loadFile);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        loadFile.delete();
+        saveFile.delete();
+    }
+
+    @Benchmark
+    public StudentStore load() throws IOException {
+        StudentStore store = new StudentStore();
+        format.read(loadFile, store);
+        return store;
+    }
+
+    @Benchmark
+    public long save() throws IOException {
+        format.write(cohort, saveFile);
+        return saveFile.length();
+    }
+}
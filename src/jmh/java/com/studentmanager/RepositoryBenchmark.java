@@ -0,0 +1,63 @@
+package com.studentmanager;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Concurrent use of StudentRepository: roll lookups alone (scale with -t), and
+// lookups running next to a writer updating marks.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g"})
+public class RepositoryBenchmark {
+    @Param({"100000", "1000000"})
+    int records;
+
+    private StudentRepository repository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repository = new StudentRepository();
+        repository.addAll(SnapshotTool.syntheticCohort(records, 42));
+    }
+
+    private int randomRoll() {
+        return 1 + ThreadLocalRandom.current().nextInt(records);
+    }
+
+    @Benchmark
+    public Student lookup() {
+        return repository.findByRoll(randomRoll());
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public Student mixedLookup() {
+        return repository.findByRoll(randomRoll());
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public boolean mixedUpdate() {
+        return repository.update(randomRoll(), "Updated Student", ThreadLocalRandom.current().nextInt(10001) / 100.0);
+    }
+}
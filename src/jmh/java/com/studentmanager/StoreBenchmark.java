@@ -0,0 +1,95 @@
+package com.studentmanager;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+// Per-operation paths of the GUI on a loaded store: roll search, the duplicate
+// check in addStudent, an edit with its aggregate bookkeeping, and the reads
+// behind updateDashboardMetrics. Throughput plus sampled latency percentiles.
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g"})
+public class StoreBenchmark {
+    // Power of two so the probe cursor can wrap with a mask
+    private static final int PROBES = 1 << 16;
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    int records;
+
+    private StudentStore store;
+    private DashboardAggregates aggregates;
+    // Half existing rolls, half misses, in random order
+    private int[] searchProbes;
+    private int[] existingRolls;
+    private double[] newMarks;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        store = SnapshotTool.syntheticCohort(records, 42);
+        aggregates = new DashboardAggregates(store);
+        aggregates.rebuild();
+        // Build the marks index up front so the edit path measures upkeep, not the first build
+        store.topRolls(1);
+
+        Random random = new Random(7);
+        searchProbes = new int[PROBES];
+        existingRolls = new int[PROBES];
+        newMarks = new double[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            int roll = 1 + random.nextInt(records);
+            searchProbes[i] = random.nextBoolean() ? roll : records + roll;
+            existingRolls[i] = roll;
+            newMarks[i] = random.nextInt(10001) / 100.0;
+        }
+    }
+
+    private int next() {
+        return cursor = (cursor + 1) & (PROBES - 1);
+    }
+
+    @Benchmark
+    public Student rollSearch() {
+        return store.findByRoll(searchProbes[next()]);
+    }
+
+    @Benchmark
+    public boolean duplicateCheck() {
+        // Always an existing roll, so the add is rejected and the store is unchanged
+        return store.add(existingRolls[next()], "Duplicate Student", 50.0);
+    }
+
+    @Benchmark
+    public boolean updateMarks() {
+        int i = next();
+        int roll = existingRolls[i];
+        int position = store.indexOf(roll);
+        aggregates.update(store.marksAt(position), newMarks[i]);
+        return store.update(roll, store.nameAt(position), newMarks[i]);
+    }
+
+    @Benchmark
+    public void dashboardMetrics(Blackhole blackhole) {
+        blackhole.consume(aggregates.count());
+        blackhole.consume(aggregates.average());
+        blackhole.consume(aggregates.topMarks());
+        blackhole.consume(store.findByRoll(aggregates.topRoll()));
+    }
+}
@@ -0,0 +1,138 @@
+package com.studentmanager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Load generator for StudentApiServer. Each thread loops over keep-alive
+// requests for the given time: GET /students/{roll} for random rolls in
+// [1, maxRoll], and with writePercent > 0 that share of PUTs instead. Reports
+// requests per second and latency percentiles, then the server's own
+// timings from GET /metrics.
+//
+//   ApiLoadTest [baseUrl] [threads] [seconds] [maxRoll] [writePercent]
+public final class ApiLoadTest {
+    private ApiLoadTest() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:" + StudentApiServer.DEFAULT_PORT;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int maxRoll = args.length > 3 ? Integer.parseInt(args[3]) : 1000;
+        int writePercent = args.length > 4 ? Integer.parseInt(args[4]) : 0;
+
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        long[][] latencies = new long[threads][];
+        int[] counts = new int[threads];
+        AtomicLong errors = new AtomicLong();
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final int id = t;
+            workers[t] = new Thread(() -> {
+                long[] samples = new long[1 << 14];
+                int n = 0;
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    int roll = 1 + random.nextInt(maxRoll);
+                    boolean write = random.nextInt(100) < writePercent;
+                    long start = System.nanoTime();
+                    try {
+                        int status = write
+                            ? request(baseUrl + "/students/" + roll, "PUT",
+                                "{\"name\":\"Load Test " + roll + "\",\"marks\":" + random.nextInt(10001) / 100.0 + "}")
+                            : request(baseUrl + "/students/" + roll, "GET", null);
+                        if (status >= 500) {
+                            errors.incrementAndGet();
+                        }
+                    } catch (IOException e) {
+                        errors.incrementAndGet();
+                    }
+                    if (n == samples.length) {
+                        samples = Arrays.copyOf(samples, n * 2);
+                    }
+                    samples[n++] = System.nanoTime() - start;
+                }
+                latencies[id] = samples;
+                counts[id] = n;
+            }, "load-" + t);
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        int total = 0;
+        for (int count : counts) {
+            total += count;
+        }
+        long[] all = new long[total];
+        int at = 0;
+        for (int t = 0; t < threads; t++) {
+            System.arraycopy(latencies[t], 0, all, at, counts[t]);
+            at += counts[t];
+        }
+        Arrays.sort(all);
+        System.out.printf("%,d requests in %d s with %d threads (%d%% writes), %,d errors%n",
+            total, seconds, threads, writePercent, errors.get());
+        System.out.printf("Throughput: %,.0f requests/s%n", total / (double) seconds);
+        if (total > 0) {
+            System.out.printf("Latency: p50 %.3f ms, p99 %.3f ms, p99.9 %.3f ms, max %.3f ms%n",
+                percentile(all, 50), percentile(all, 99), percentile(all, 99.9), all[total - 1] / 1e6);
+        }
+        try {
+            System.out.println("\nServer metrics:");
+            System.out.print(fetch(baseUrl + "/metrics"));
+        } catch (IOException e) {
+            System.err.println("Could not read server metrics: " + e.getMessage());
+        }
+    }
+
+    private static String fetch(String url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        try (InputStream in = connection.getInputStream()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1e6;
+    }
+
+    // Sends one request and drains the response so the connection is reused
+    private static int request(String url, String method, String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setRequestMethod(method);
+        if (body != null) {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json");
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        int status = connection.getResponseCode();
+        InputStream in = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+        if (in != null) {
+            byte[] buffer = new byte[1024];
+            while (in.read(buffer) > 0) {
+                // discard
+            }
+            in.close();
+        }
+        return status;
+    }
+}
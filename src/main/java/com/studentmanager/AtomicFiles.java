@@ -0,0 +1,44 @@
+package com.studentmanager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+// Whole-file replacement for the data files: the new contents are written to
+// a temp file beside the target and renamed over it, so readers and a crash
+// mid-write only ever see the old file or the complete new one.
+final class AtomicFiles {
+    private AtomicFiles() {
+    }
+
+    // Temp file a replacement of file is written to; same directory, so the
+    // rename stays on one file system
+    static File temporaryFor(File file) {
+        return new File(file.getPath() + ".tmp");
+    }
+
+    // Renames from over to in one step where the file system supports it
+    static void move(File from, File to) throws IOException {
+        try {
+            Files.move(from.toPath(), to.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(from.toPath(), to.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // Moves temp, a finished replacement, over target and makes both durable
+    // as fsync asks: the contents before the rename, the rename after it.
+    // temp is removed if anything fails.
+    static void commit(File temp, File target, FsyncPolicy fsync) throws IOException {
+        try {
+            fsync.completed(temp);
+            move(temp, target);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp.toPath());
+            throw e;
+        }
+        fsync.directoryChanged(target.getAbsoluteFile().getParentFile());
+    }
+}
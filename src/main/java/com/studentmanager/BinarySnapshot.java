@@ -0,0 +1,140 @@
+package com.studentmanager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+
+// Binary snapshot of the store, an alternative to the text data file that
+// loads without any number parsing. Little-endian layout:
+//
+//   header   int magic "SRMB", int version, int count, int reserved, long nameBytes
+//   rolls    count x int
+//   marks    count x double
+//   lengths  count x int    byte length of each name
+//   names    nameBytes      UTF-8 names back to back, in record order
+//
+// Every section is read with one bulk ByteBuffer transfer straight into the
+// store's column arrays.
+final class BinarySnapshot {
+    static final int MAGIC = 0x424D5253; // "SRMB" read little-endian
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 24;
+
+    private static final int WRITE_BUFFER_BYTES = 1 << 20;
+
+    private BinarySnapshot() {
+    }
+
+    static FastStudentLoader.LoadReport load(File file, StudentStore store) throws IOException {
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                throw new IOException(file + " is too short for a binary snapshot");
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            if (mapped.getInt() != MAGIC) {
+                throw new IOException(file + " is not a binary student snapshot");
+            }
+            int version = mapped.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported binary snapshot version " + version);
+            }
+            int count = mapped.getInt();
+            mapped.getInt(); // reserved
+            long nameBytes = mapped.getLong();
+            long expected = HEADER_BYTES + count * 16L + nameBytes;
+            if (count < 0 || nameBytes < 0 || nameBytes > Integer.MAX_VALUE || size != expected) {
+                throw new IOException(file + " is truncated or corrupt (expected " + expected + " bytes, found " + size + ")");
+            }
+
+            int[] rolls = new int[count];
+            double[] marks = new double[count];
+            int[] lengths = new int[count];
+            byte[] names = new byte[(int) nameBytes];
+
+            mapped.asIntBuffer().get(rolls);
+            mapped.position(mapped.position() + count * 4);
+            mapped.asDoubleBuffer().get(marks);
+            mapped.position(mapped.position() + count * 8);
+            mapped.asIntBuffer().get(lengths);
+            mapped.position(mapped.position() + count * 4);
+            mapped.get(names);
+
+            long sum = 0;
+            for (int length : lengths) {
+                if (length < 0) {
+                    throw new IOException(file + " has a negative name length");
+                }
+                sum += length;
+            }
+            if (sum != nameBytes) {
+                throw new IOException(file + " name table does not match its header");
+            }
+
+            int added = store.addColumns(rolls, marks, lengths, names, count);
+            int rejected = count - added;
+            StudentLog.rejected(rejected); // duplicates; the records themselves are not kept
+            return new FastStudentLoader.LoadReport(added, rejected, size, System.nanoTime() - start,
+                rejected == 0 ? Collections.<String>emptyList()
+                    : Collections.singletonList(rejected + " records: duplicate roll number"));
+        }
+    }
+
+    static void write(StudentStore store, File file) throws IOException {
+        int count = store.size();
+        long nameBytes = 0;
+        for (int i = 0; i < count; i++) {
+            nameBytes += store.nameLengthAt(i);
+        }
+
+        try (FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(count).putInt(0).putLong(nameBytes);
+            for (int i = 0; i < count; i++) {
+                buffer = room(channel, buffer, 4);
+                buffer.putInt(store.rollAt(i));
+            }
+            for (int i = 0; i < count; i++) {
+                buffer = room(channel, buffer, 8);
+                buffer.putDouble(store.marksAt(i));
+            }
+            for (int i = 0; i < count; i++) {
+                buffer = room(channel, buffer, 4);
+                buffer.putInt(store.nameLengthAt(i));
+            }
+            for (int i = 0; i < count; i++) {
+                buffer = room(channel, buffer, store.nameLengthAt(i));
+                store.copyNameBytes(i, buffer);
+            }
+            drain(channel, buffer);
+        }
+    }
+
+    // Drains the buffer when fewer than needed bytes are left, growing it for oversized names
+    private static ByteBuffer room(FileChannel channel, ByteBuffer buffer, int needed) throws IOException {
+        if (buffer.remaining() >= needed) {
+            return buffer;
+        }
+        drain(channel, buffer);
+        if (buffer.capacity() < needed) {
+            return ByteBuffer.allocateDirect(needed).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return buffer;
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
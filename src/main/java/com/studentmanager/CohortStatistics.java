@@ -0,0 +1,209 @@
+package com.studentmanager;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Distribution of a cohort's marks: spread, quartiles, pass rate and grade
+// bands, for the dashboard and the stats command. One parallel pass over the
+// primitive marks column fills mergeable partial aggregates (count, mean and
+// sum of squared deviations by Welford's method, min, max, passes, band
+// counts), split with fork/join; quartiles are exact, read from a parallel
+// sort of the same array, or passed in by a caller that can select them from
+// the store's marks index instead. Percentiles use the nearest-rank rule of
+// StudentStore.percentile, so both agree.
+final class CohortStatistics {
+    // Marks at or above this count as a pass
+    static final String PASS_MARK_PROPERTY = "studentmanager.passMark";
+    static final double DEFAULT_PASS_MARK = 50;
+    // A is 90 and above, each band after it ten marks lower, F everything below 50
+    static final String[] GRADE_BANDS = {"A", "B", "C", "D", "E", "F"};
+    static final String[] GRADE_BAND_RANGES = {"90+", "80-89", "70-79", "60-69", "50-59", "<50"};
+
+    // Marks per fork/join leaf task
+    private static final int LEAF_SIZE = 1 << 15;
+
+    final int count;
+    final double mean;
+    final double standardDeviation; // of the whole cohort (population)
+    final double min;
+    final double q1;
+    final double median;
+    final double q3;
+    final double max;
+    final double passMark;
+    final int passed;
+    private final int[] bandCounts;
+    final int topPosition; // store position of the top scorer, lower roll on ties; -1 when no mark is a number
+
+    private CohortStatistics(Partial totals, double q1, double median, double q3, double passMark) {
+        this.count = (int) totals.count;
+        this.mean = count == 0 ? Double.NaN : totals.mean;
+        this.standardDeviation = count == 0 ? Double.NaN : Math.sqrt(totals.m2 / count);
+        // NaN marks have no band, pass, minimum or maximum; with nothing else there is none
+        this.min = totals.topPosition < 0 ? Double.NaN : totals.min;
+        this.max = totals.topPosition < 0 ? Double.NaN : totals.max;
+        this.q1 = q1;
+        this.median = median;
+        this.q3 = q3;
+        this.passMark = passMark;
+        this.passed = (int) totals.passed;
+        this.bandCounts = new int[GRADE_BANDS.length];
+        for (int i = 0; i < bandCounts.length; i++) {
+            bandCounts[i] = (int) totals.bands[i];
+        }
+        this.topPosition = totals.topPosition;
+    }
+
+    // Statistics of every record in store. The store must not change while
+    // this runs; callers off the owning thread pass a snapshot.
+    static CohortStatistics of(StudentStore store) {
+        int size = store.size();
+        int[] rolls = new int[size];
+        for (int i = 0; i < size; i++) {
+            rolls[i] = store.rollAt(i);
+        }
+        return compute(store.marksSnapshot(), rolls, configuredPassMark());
+    }
+
+    // Statistics of marks, where rolls (same length, or null) break ties for the
+    // top scorer. Sorts marks in place.
+    static CohortStatistics compute(double[] marks, int[] rolls, double passMark) {
+        Partial totals = totals(marks, rolls, passMark);
+        Arrays.parallelSort(marks);
+        return new CohortStatistics(totals, percentile(marks, 25), percentile(marks, 50), percentile(marks, 75),
+            passMark);
+    }
+
+    // Statistics of a marks column whose quartiles the caller already has, as
+    // StudentStore.percentile gives them; nothing is sorted. Without rolls,
+    // topPosition is the first position with the top mark.
+    static CohortStatistics compute(double[] marks, double q1, double median, double q3, double passMark) {
+        return new CohortStatistics(totals(marks, null, passMark), q1, median, q3, passMark);
+    }
+
+    private static Partial totals(double[] marks, int[] rolls, double passMark) {
+        return marks.length == 0 ? new Partial()
+            : ForkJoinPool.commonPool().invoke(new PartialTask(marks, rolls, passMark, 0, marks.length));
+    }
+
+    static double configuredPassMark() {
+        String value = System.getProperty(PASS_MARK_PROPERTY);
+        return value == null ? DEFAULT_PASS_MARK : Double.parseDouble(value.trim());
+    }
+
+    // Fraction of the cohort at or above the pass mark; NaN when empty
+    double passRate() {
+        return count == 0 ? Double.NaN : (double) passed / count;
+    }
+
+    int bandCount(int band) {
+        return bandCounts[band];
+    }
+
+    // Grade band index of a mark: A for 90 and above down to F below 50. NaN
+    // marks are in no band; callers skip them.
+    static int band(double marks) {
+        double band = 9 - Math.floor(marks / 10);
+        return (int) Math.max(0, Math.min(GRADE_BANDS.length - 1, band));
+    }
+
+    private static double percentile(double[] sorted, double p) {
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+        int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+
+    // Aggregates of a slice of the marks; two slices merge into the aggregates of both
+    private static final class Partial {
+        long count;
+        double mean;
+        double m2; // sum of squared deviations from mean
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        long passed;
+        final long[] bands = new long[GRADE_BANDS.length];
+        int topPosition = -1;
+
+        void add(double[] marks, int[] rolls, double passMark, int from, int to) {
+            for (int i = from; i < to; i++) {
+                double x = marks[i];
+                count++;
+                double delta = x - mean;
+                mean += delta / count;
+                m2 += delta * (x - mean);
+                if (Double.isNaN(x)) {
+                    continue;
+                }
+                if (x < min) {
+                    min = x;
+                }
+                if (topPosition < 0 || x > max || (x == max && rolls != null && rolls[i] < rolls[topPosition])) {
+                    max = x;
+                    topPosition = i;
+                }
+                if (x >= passMark) {
+                    passed++;
+                }
+                bands[band(x)]++;
+            }
+        }
+
+        // Chan et al.'s pairwise update for the mean and squared deviations
+        void merge(Partial other, int[] rolls) {
+            if (other.count == 0) {
+                return;
+            }
+            long total = count + other.count;
+            double delta = other.mean - mean;
+            mean += delta * other.count / total;
+            m2 += other.m2 + delta * delta * ((double) count * other.count / total);
+            count = total;
+            min = Math.min(min, other.min);
+            if (other.topPosition >= 0 && (topPosition < 0 || other.max > max
+                    || (other.max == max && rolls != null && rolls[other.topPosition] < rolls[topPosition]))) {
+                max = other.max;
+                topPosition = other.topPosition;
+            }
+            passed += other.passed;
+            for (int i = 0; i < bands.length; i++) {
+                bands[i] += other.bands[i];
+            }
+        }
+    }
+
+    private static final class PartialTask extends RecursiveTask<Partial> {
+        private static final long serialVersionUID = 1L;
+
+        private final double[] marks;
+        private final int[] rolls;
+        private final double passMark;
+        private final int from;
+        private final int to;
+
+        PartialTask(double[] marks, int[] rolls, double passMark, int from, int to) {
+            this.marks = marks;
+            this.rolls = rolls;
+            this.passMark = passMark;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (to - from <= LEAF_SIZE) {
+                Partial partial = new Partial();
+                partial.add(marks, rolls, passMark, from, to);
+                return partial;
+            }
+            int mid = (from + to) >>> 1;
+            PartialTask right = new PartialTask(marks, rolls, passMark, mid, to);
+            right.fork();
+            Partial left = new PartialTask(marks, rolls, passMark, from, mid).compute();
+            left.merge(right.join(), rolls);
+            return left;
+        }
+    }
+}
@@ -0,0 +1,534 @@
+package com.studentmanager;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Fixed-width primitive columns behind StudentStore and RollIndex. HEAP wraps
+// plain arrays. mapped() keeps every column in its own memory-mapped file
+// outside the Java heap, so a store of tens of millions of records needs only
+// a few objects on the heap and the OS pages the data in and out as it is used.
+//
+// Heap int and double columns are split into chunks so that snapshot() can
+// share them copy-on-write: after a snapshot neither side owns any chunk, and
+// the first write to a chunk copies it (CHUNK_SIZE entries at most). Taking a
+// snapshot is O(1) and writers pay only for the chunks they touch.
+//
+// A mapped column file is unlinked as soon as it is mapped (where the OS
+// allows it), so it needs no cleanup: its disk space is freed once the
+// column is no longer referenced and its mapping is collected. Mapped
+// columns grow, and snapshot, by copying into a new file.
+abstract class Columns {
+    static final Columns HEAP = new HeapColumns();
+
+    // A single mapping is limited to 2 GB
+    private static final long MAX_MAPPED_BYTES = Integer.MAX_VALUE;
+
+    private static final int CHUNK_SHIFT = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    static Columns mapped(File directory) {
+        return new MappedColumns(directory);
+    }
+
+    abstract Ints ints(int length);
+
+    abstract Doubles doubles(int length);
+
+    abstract Bytes bytes(int length);
+
+    abstract static class Ints {
+        abstract int length();
+
+        abstract int get(int index);
+
+        abstract void set(int index, int value);
+
+        abstract void fill(int value);
+
+        // Column holding the first count entries, with room for length; this
+        // column must not be used afterwards
+        abstract Ints grow(int count, int length);
+
+        // Copy of the current contents that later writes to either column do not affect
+        abstract Ints snapshot();
+    }
+
+    abstract static class Doubles {
+        abstract int length();
+
+        abstract double get(int index);
+
+        abstract void set(int index, double value);
+
+        abstract Doubles grow(int count, int length);
+
+        abstract Doubles snapshot();
+    }
+
+    abstract static class Bytes {
+        abstract int length();
+
+        abstract void set(int index, byte value);
+
+        abstract void put(int index, byte[] source, int offset, int count);
+
+        // Copies count bytes starting at index into target at targetIndex
+        abstract void copyTo(int index, Bytes target, int targetIndex, int count);
+
+        abstract void copyTo(int index, int count, ByteBuffer out);
+
+        abstract String decode(int index, int count);
+
+        abstract Bytes grow(int count, int length);
+    }
+
+    private static final class HeapColumns extends Columns {
+        @Override
+        Ints ints(int length) {
+            return new HeapInts(length);
+        }
+
+        @Override
+        Doubles doubles(int length) {
+            return new HeapDoubles(length);
+        }
+
+        @Override
+        Bytes bytes(int length) {
+            return new HeapBytes(new byte[length]);
+        }
+    }
+
+    private static final class HeapInts extends Ints {
+        private final int length;
+        private int[][] chunks;
+        // Chunk c may be written in place only while owners[c] == token
+        private Object[] owners;
+        private Object token = new Object();
+        // chunks and owners are also referenced by a snapshot
+        private boolean spineShared;
+
+        HeapInts(int length) {
+            this.length = length;
+            this.chunks = new int[chunkCount(length)][];
+            this.owners = new Object[chunks.length];
+            for (int c = 0; c < chunks.length; c++) {
+                chunks[c] = new int[chunkLength(length, c)];
+                owners[c] = token;
+            }
+        }
+
+        private HeapInts(int length, int[][] chunks, Object[] owners) {
+            this.length = length;
+            this.chunks = chunks;
+            this.owners = owners;
+            this.spineShared = true;
+        }
+
+        @Override
+        int length() {
+            return length;
+        }
+
+        @Override
+        int get(int index) {
+            return chunks[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+        }
+
+        @Override
+        void set(int index, int value) {
+            int c = index >>> CHUNK_SHIFT;
+            if (owners[c] != token) {
+                own(c, true);
+            }
+            chunks[c][index & CHUNK_MASK] = value;
+        }
+
+        @Override
+        void fill(int value) {
+            for (int c = 0; c < chunks.length; c++) {
+                if (owners[c] != token) {
+                    own(c, false);
+                }
+                Arrays.fill(chunks[c], value);
+            }
+        }
+
+        @Override
+        Ints grow(int count, int newLength) {
+            HeapInts grown = new HeapInts(newLength, new int[chunkCount(newLength)][], new Object[chunkCount(newLength)]);
+            grown.token = token;
+            grown.spineShared = false;
+            for (int c = 0; c < grown.chunks.length; c++) {
+                int chunkLength = chunkLength(newLength, c);
+                if (c < chunks.length && chunks[c].length == chunkLength) {
+                    // Full chunks move over as they are, shared or not
+                    grown.chunks[c] = chunks[c];
+                    grown.owners[c] = owners[c];
+                } else {
+                    grown.chunks[c] = c < chunks.length ? Arrays.copyOf(chunks[c], chunkLength) : new int[chunkLength];
+                    grown.owners[c] = token;
+                }
+            }
+            return grown;
+        }
+
+        @Override
+        Ints snapshot() {
+            spineShared = true;
+            token = new Object();
+            return new HeapInts(length, chunks, owners);
+        }
+
+        // Gives this column its own copy of chunk c (or a blank one when the
+        // contents are about to be overwritten anyway)
+        private void own(int c, boolean keepContents) {
+            if (spineShared) {
+                chunks = chunks.clone();
+                owners = owners.clone();
+                spineShared = false;
+            }
+            chunks[c] = keepContents ? chunks[c].clone() : new int[chunks[c].length];
+            owners[c] = token;
+        }
+    }
+
+    private static final class HeapDoubles extends Doubles {
+        private final int length;
+        private double[][] chunks;
+        private Object[] owners;
+        private Object token = new Object();
+        private boolean spineShared;
+
+        HeapDoubles(int length) {
+            this.length = length;
+            this.chunks = new double[chunkCount(length)][];
+            this.owners = new Object[chunks.length];
+            for (int c = 0; c < chunks.length; c++) {
+                chunks[c] = new double[chunkLength(length, c)];
+                owners[c] = token;
+            }
+        }
+
+        private HeapDoubles(int length, double[][] chunks, Object[] owners) {
+            this.length = length;
+            this.chunks = chunks;
+            this.owners = owners;
+            this.spineShared = true;
+        }
+
+        @Override
+        int length() {
+            return length;
+        }
+
+        @Override
+        double get(int index) {
+            return chunks[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+        }
+
+        @Override
+        void set(int index, double value) {
+            int c = index >>> CHUNK_SHIFT;
+            if (owners[c] != token) {
+                own(c);
+            }
+            chunks[c][index & CHUNK_MASK] = value;
+        }
+
+        @Override
+        Doubles grow(int count, int newLength) {
+            HeapDoubles grown = new HeapDoubles(newLength, new double[chunkCount(newLength)][], new Object[chunkCount(newLength)]);
+            grown.token = token;
+            grown.spineShared = false;
+            for (int c = 0; c < grown.chunks.length; c++) {
+                int chunkLength = chunkLength(newLength, c);
+                if (c < chunks.length && chunks[c].length == chunkLength) {
+                    grown.chunks[c] = chunks[c];
+                    grown.owners[c] = owners[c];
+                } else {
+                    grown.chunks[c] = c < chunks.length ? Arrays.copyOf(chunks[c], chunkLength) : new double[chunkLength];
+                    grown.owners[c] = token;
+                }
+            }
+            return grown;
+        }
+
+        @Override
+        Doubles snapshot() {
+            spineShared = true;
+            token = new Object();
+            return new HeapDoubles(length, chunks, owners);
+        }
+
+        private void own(int c) {
+            if (spineShared) {
+                chunks = chunks.clone();
+                owners = owners.clone();
+                spineShared = false;
+            }
+            chunks[c] = chunks[c].clone();
+            owners[c] = token;
+        }
+    }
+
+    private static final class HeapBytes extends Bytes {
+        private final byte[] values;
+
+        HeapBytes(byte[] values) {
+            this.values = values;
+        }
+
+        @Override
+        int length() {
+            return values.length;
+        }
+
+        @Override
+        void set(int index, byte value) {
+            values[index] = value;
+        }
+
+        @Override
+        void put(int index, byte[] source, int offset, int count) {
+            System.arraycopy(source, offset, values, index, count);
+        }
+
+        @Override
+        void copyTo(int index, Bytes target, int targetIndex, int count) {
+            target.put(targetIndex, values, index, count);
+        }
+
+        @Override
+        void copyTo(int index, int count, ByteBuffer out) {
+            out.put(values, index, count);
+        }
+
+        @Override
+        String decode(int index, int count) {
+            return new String(values, index, count, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        Bytes grow(int count, int length) {
+            byte[] grown = new byte[length];
+            System.arraycopy(values, 0, grown, 0, count);
+            return new HeapBytes(grown);
+        }
+    }
+
+    private static final class MappedColumns extends Columns {
+        private final File directory;
+
+        MappedColumns(File directory) {
+            this.directory = directory;
+        }
+
+        @Override
+        Ints ints(int length) {
+            return new MappedInts(this, map((long) length << 2), length);
+        }
+
+        @Override
+        Doubles doubles(int length) {
+            return new MappedDoubles(this, map((long) length << 3), length);
+        }
+
+        @Override
+        Bytes bytes(int length) {
+            return new MappedBytes(this, map(length), length);
+        }
+
+        // Maps a new zero-filled file of the given size and unlinks it
+        private ByteBuffer map(long bytes) {
+            if (bytes > MAX_MAPPED_BYTES) {
+                throw new IllegalStateException("Mapped column too large: " + bytes + " bytes");
+            }
+            try {
+                File file = File.createTempFile("students-", ".col", directory);
+                ByteBuffer buffer;
+                try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                    raf.setLength(bytes);
+                    buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+                }
+                if (!file.delete()) {
+                    // Windows keeps mapped files; remove it when the JVM exits instead
+                    file.deleteOnExit();
+                }
+                return buffer.order(ByteOrder.nativeOrder());
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot map a column file in " + directory, e);
+            }
+        }
+    }
+
+    private static final class MappedInts extends Ints {
+        private final MappedColumns columns;
+        private final ByteBuffer buffer;
+        private final int length;
+
+        MappedInts(MappedColumns columns, ByteBuffer buffer, int length) {
+            this.columns = columns;
+            this.buffer = buffer;
+            this.length = length;
+        }
+
+        @Override
+        int length() {
+            return length;
+        }
+
+        @Override
+        int get(int index) {
+            return buffer.getInt(index << 2);
+        }
+
+        @Override
+        void set(int index, int value) {
+            buffer.putInt(index << 2, value);
+        }
+
+        @Override
+        void fill(int value) {
+            for (int i = 0; i < length; i++) {
+                buffer.putInt(i << 2, value);
+            }
+        }
+
+        @Override
+        Ints grow(int count, int newLength) {
+            MappedInts grown = (MappedInts) columns.ints(newLength);
+            copyBytes(buffer, grown.buffer, (long) count << 2);
+            return grown;
+        }
+
+        @Override
+        Ints snapshot() {
+            return grow(length, length);
+        }
+    }
+
+    private static final class MappedDoubles extends Doubles {
+        private final MappedColumns columns;
+        private final ByteBuffer buffer;
+        private final int length;
+
+        MappedDoubles(MappedColumns columns, ByteBuffer buffer, int length) {
+            this.columns = columns;
+            this.buffer = buffer;
+            this.length = length;
+        }
+
+        @Override
+        int length() {
+            return length;
+        }
+
+        @Override
+        double get(int index) {
+            return buffer.getDouble(index << 3);
+        }
+
+        @Override
+        void set(int index, double value) {
+            buffer.putDouble(index << 3, value);
+        }
+
+        @Override
+        Doubles grow(int count, int newLength) {
+            MappedDoubles grown = (MappedDoubles) columns.doubles(newLength);
+            copyBytes(buffer, grown.buffer, (long) count << 3);
+            return grown;
+        }
+
+        @Override
+        Doubles snapshot() {
+            return grow(length, length);
+        }
+    }
+
+    private static final class MappedBytes extends Bytes {
+        private final MappedColumns columns;
+        private final ByteBuffer buffer;
+        private final int length;
+
+        MappedBytes(MappedColumns columns, ByteBuffer buffer, int length) {
+            this.columns = columns;
+            this.buffer = buffer;
+            this.length = length;
+        }
+
+        @Override
+        int length() {
+            return length;
+        }
+
+        @Override
+        void set(int index, byte value) {
+            buffer.put(index, value);
+        }
+
+        @Override
+        void put(int index, byte[] source, int offset, int count) {
+            ByteBuffer target = buffer.duplicate();
+            target.position(index);
+            target.put(source, offset, count);
+        }
+
+        @Override
+        void copyTo(int index, Bytes target, int targetIndex, int count) {
+            byte[] bytes = new byte[count];
+            ByteBuffer source = buffer.duplicate();
+            source.position(index);
+            source.get(bytes);
+            target.put(targetIndex, bytes, 0, count);
+        }
+
+        @Override
+        void copyTo(int index, int count, ByteBuffer out) {
+            ByteBuffer source = buffer.duplicate();
+            source.position(index).limit(index + count);
+            out.put(source);
+        }
+
+        @Override
+        String decode(int index, int count) {
+            byte[] bytes = new byte[count];
+            ByteBuffer source = buffer.duplicate();
+            source.position(index);
+            source.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        Bytes grow(int count, int newLength) {
+            MappedBytes grown = (MappedBytes) columns.bytes(newLength);
+            copyBytes(buffer, grown.buffer, count);
+            return grown;
+        }
+    }
+
+    private static int chunkCount(int length) {
+        return (length >>> CHUNK_SHIFT) + ((length & CHUNK_MASK) != 0 ? 1 : 0);
+    }
+
+    private static int chunkLength(int length, int chunk) {
+        return Math.min(CHUNK_SIZE, length - (chunk << CHUNK_SHIFT));
+    }
+
+    private static void copyBytes(ByteBuffer source, ByteBuffer target, long count) {
+        ByteBuffer from = source.duplicate();
+        from.position(0).limit((int) count);
+        ByteBuffer to = target.duplicate();
+        to.position(0);
+        to.put(from);
+    }
+}
@@ -0,0 +1,319 @@
+package com.studentmanager;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+// Compressed snapshot of the store, for backups and large rosters. After a
+// little-endian header (int magic "SRMC", int version, int count, int
+// reserved) every record follows in store order as unsigned LEB128 varints:
+//
+//   roll    zigzag of the difference to the previous roll (the first to 0),
+//           so a sorted roster costs one byte per roll
+//   marks   zigzag(marks * 100) << 1 when that is exact, as for any mark with
+//           up to two decimals; otherwise 1, then the 8 raw double bytes
+//   name    two string references, the part before the first space and the
+//           rest (the space included), concatenated
+//
+// A string reference is index << 1 into the dictionary of strings seen so far,
+// or length << 1 | 1 followed by that many UTF-8 bytes. A literal joins the
+// dictionary until it holds MAX_DICTIONARY entries, the same way on both
+// sides, so repeated first and last names shrink to one or two bytes each.
+//
+// Decoding streams through a fixed buffer and hands the store a block of
+// records at a time, so memory stays flat however large the file.
+final class CompactSnapshot {
+    static final int MAGIC = 0x434D5253; // "SRMC" read little-endian
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+
+    private static final int MAX_DICTIONARY = 1 << 16;
+    private static final int BUFFER_BYTES = 1 << 20;
+    private static final int BLOCK_RECORDS = 1 << 16;
+    private static final int MAX_VARINT_BYTES = 10;
+
+    private CompactSnapshot() {
+    }
+
+    static FastStudentLoader.LoadReport load(File file, StudentStore store) throws IOException {
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            Input in = new Input(channel);
+            if (size < HEADER_BYTES) {
+                throw new IOException(file + " is too short for a compact snapshot");
+            }
+            in.require(HEADER_BYTES);
+            if (in.buffer.getInt() != MAGIC) {
+                throw new IOException(file + " is not a compact student snapshot");
+            }
+            int version = in.buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported compact snapshot version " + version);
+            }
+            int count = in.buffer.getInt();
+            in.buffer.getInt(); // reserved
+            if (count < 0) {
+                throw new IOException(file + " is corrupt (negative record count)");
+            }
+
+            Dictionary dictionary = new Dictionary();
+            int block = Math.min(count, BLOCK_RECORDS);
+            int[] rolls = new int[block];
+            double[] marks = new double[block];
+            int[] lengths = new int[block];
+            byte[] names = new byte[block * 16];
+            int added = 0;
+            long previousRoll = 0;
+            try {
+                for (int done = 0; done < count; ) {
+                    int n = Math.min(block, count - done);
+                    int nameBytes = 0;
+                    for (int i = 0; i < n; i++) {
+                        long roll = previousRoll + unzigzag(in.readVarint());
+                        if (roll < Integer.MIN_VALUE || roll > Integer.MAX_VALUE) {
+                            throw new IOException(file + " is corrupt (roll number out of range)");
+                        }
+                        rolls[i] = (int) roll;
+                        previousRoll = roll;
+
+                        long mark = in.readVarint();
+                        if ((mark & 1) == 0) {
+                            marks[i] = unzigzag(mark >>> 1) / 100.0;
+                        } else {
+                            in.require(8);
+                            marks[i] = in.buffer.getDouble();
+                        }
+
+                        int before = nameBytes;
+                        for (int part = 0; part < 2; part++) {
+                            byte[] text = dictionary.read(in);
+                            if (nameBytes + text.length > names.length) {
+                                names = Arrays.copyOf(names, Math.max(names.length * 2, nameBytes + text.length));
+                            }
+                            System.arraycopy(text, 0, names, nameBytes, text.length);
+                            nameBytes += text.length;
+                        }
+                        lengths[i] = nameBytes - before;
+                    }
+                    added += store.addColumns(rolls, marks, lengths, names, n);
+                    done += n;
+                }
+            } catch (EOFException e) {
+                throw new IOException(file + " is truncated", e);
+            }
+            if (in.position() != size) {
+                throw new IOException(file + " is corrupt (" + (size - in.position()) + " bytes after the last record)");
+            }
+
+            int rejected = count - added;
+            StudentLog.rejected(rejected); // duplicates; the records themselves are not kept
+            return new FastStudentLoader.LoadReport(added, rejected, size, System.nanoTime() - start,
+                rejected == 0 ? Collections.<String>emptyList()
+                    : Collections.singletonList(rejected + " records: duplicate roll number"));
+        }
+    }
+
+    static void write(StudentStore store, File file) throws IOException {
+        int count = store.size();
+        try (FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            Output out = new Output(channel);
+            out.buffer.putInt(MAGIC).putInt(VERSION).putInt(count).putInt(0);
+            Map<String, Integer> dictionary = new HashMap<>();
+            long previousRoll = 0;
+            for (int i = 0; i < count; i++) {
+                long roll = store.rollAt(i);
+                out.writeVarint(zigzag(roll - previousRoll));
+                previousRoll = roll;
+
+                double marks = store.marksAt(i);
+                long fixed = Math.round(marks * 100);
+                if (Math.abs(fixed) < (1L << 53)
+                        && Double.doubleToLongBits(fixed / 100.0) == Double.doubleToLongBits(marks)) {
+                    out.writeVarint(zigzag(fixed) << 1);
+                } else {
+                    out.writeVarint(1);
+                    out.room(8);
+                    out.buffer.putDouble(marks);
+                }
+
+                String name = store.nameAt(i);
+                int space = name.indexOf(' ');
+                int split = space < 0 ? name.length() : space;
+                writeString(out, dictionary, name.substring(0, split));
+                writeString(out, dictionary, name.substring(split));
+            }
+            out.drain();
+        }
+    }
+
+    private static void writeString(Output out, Map<String, Integer> dictionary, String text) throws IOException {
+        Integer index = dictionary.get(text);
+        if (index != null) {
+            out.writeVarint((long) index << 1);
+            return;
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        out.writeVarint((long) bytes.length << 1 | 1);
+        out.room(bytes.length);
+        out.buffer.put(bytes);
+        if (dictionary.size() < MAX_DICTIONARY) {
+            dictionary.put(text, dictionary.size());
+        }
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    // Decoder side of the string dictionary, kept as raw UTF-8
+    private static final class Dictionary {
+        private byte[][] entries = new byte[256][];
+        private int size;
+
+        byte[] read(Input in) throws IOException {
+            long reference = in.readVarint();
+            if ((reference & 1) == 0) {
+                long index = reference >>> 1;
+                if (index >= size) {
+                    throw new IOException("Compact snapshot refers to unknown name part " + index);
+                }
+                return entries[(int) index];
+            }
+            long length = reference >>> 1;
+            if (length > in.remainingInFile()) {
+                throw new EOFException();
+            }
+            in.require((int) length);
+            byte[] text = new byte[(int) length];
+            in.buffer.get(text);
+            if (size < MAX_DICTIONARY) {
+                if (size == entries.length) {
+                    entries = Arrays.copyOf(entries, size * 2);
+                }
+                entries[size++] = text;
+            }
+            return text;
+        }
+    }
+
+    // Read side: a buffer refilled from the channel as records are consumed
+    private static final class Input {
+        private final FileChannel channel;
+        private final long size;
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        private long consumedBefore; // channel bytes that were in earlier buffer contents
+
+        Input(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.size = channel.size();
+            buffer.flip();
+        }
+
+        long position() {
+            return consumedBefore + buffer.position();
+        }
+
+        long remainingInFile() {
+            return size - position();
+        }
+
+        // Makes at least needed bytes readable, growing the buffer for oversized names
+        void require(int needed) throws IOException {
+            if (buffer.remaining() >= needed) {
+                return;
+            }
+            consumedBefore += buffer.position();
+            if (buffer.capacity() < needed) {
+                ByteBuffer larger = ByteBuffer.allocateDirect(needed).order(ByteOrder.LITTLE_ENDIAN);
+                larger.put(buffer);
+                buffer = larger;
+            } else {
+                buffer.compact();
+            }
+            while (buffer.position() < needed) {
+                if (channel.read(buffer) < 0) {
+                    buffer.flip(); // what was read stays readable
+                    throw new EOFException();
+                }
+            }
+            buffer.flip();
+        }
+
+        long readVarint() throws IOException {
+            if (buffer.remaining() < MAX_VARINT_BYTES) {
+                try {
+                    require(MAX_VARINT_BYTES);
+                } catch (EOFException e) {
+                    // Close to the end of the file; the varint may still be complete
+                    if (!buffer.hasRemaining()) {
+                        throw e;
+                    }
+                }
+            }
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (!buffer.hasRemaining()) {
+                    throw new EOFException();
+                }
+                byte b = buffer.get();
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Compact snapshot has a malformed number");
+        }
+    }
+
+    // Write side: a buffer drained to the channel whenever it fills
+    private static final class Output {
+        private final FileChannel channel;
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void room(int needed) throws IOException {
+            if (buffer.remaining() >= needed) {
+                return;
+            }
+            drain();
+            if (buffer.capacity() < needed) {
+                buffer = ByteBuffer.allocateDirect(needed).order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+
+        void writeVarint(long value) throws IOException {
+            room(MAX_VARINT_BYTES);
+            while ((value & ~0x7FL) != 0) {
+                buffer.put((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            buffer.put((byte) value);
+        }
+
+        void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.studentmanager;
+
+// Dashboard metrics maintained incrementally: each record's contribution is
+// added or removed as it changes, so a single edit costs O(log n) instead of
+// a rescan of the whole store. The top scorer comes from the store's own
+// marks index, which it keeps current on every change.
+class DashboardAggregates {
+    private final StudentStore store;
+    private int count;
+    // Neumaier compensated sum so repeated add/remove does not drift
+    private double sum;
+    private double compensation;
+
+    DashboardAggregates(StudentStore store) {
+        this.store = store;
+    }
+
+    void add(double marks) {
+        accumulate(marks);
+        count++;
+    }
+
+    void remove(double marks) {
+        accumulate(-marks);
+        if (--count == 0) {
+            sum = 0;
+            compensation = 0;
+        }
+    }
+
+    void update(double oldMarks, double newMarks) {
+        if (Double.compare(oldMarks, newMarks) == 0) {
+            return;
+        }
+        accumulate(newMarks - oldMarks);
+    }
+
+    void clear() {
+        count = 0;
+        sum = 0;
+        compensation = 0;
+    }
+
+    void rebuild() {
+        clear();
+        count = store.size();
+        sum = store.sumMarks();
+    }
+
+    int count() {
+        return count;
+    }
+
+    double average() {
+        return count == 0 ? Double.NaN : (sum + compensation) / count;
+    }
+
+    // Roll number of the top scorer, lower roll first on equal marks; only
+    // valid when count() > 0
+    int topRoll() {
+        return store.topRolls(1)[0];
+    }
+
+    double topMarks() {
+        return store.marksAt(store.indexOf(topRoll()));
+    }
+
+    private void accumulate(double value) {
+        double t = sum + value;
+        if (Math.abs(sum) >= Math.abs(value)) {
+            compensation += (sum - t) + value;
+        } else {
+            compensation += (value - t) + sum;
+        }
+        sum = t;
+    }
+}
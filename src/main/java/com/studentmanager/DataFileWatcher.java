@@ -0,0 +1,455 @@
+package com.studentmanager;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Keeps the records in step with changes other processes make to the data
+// file, without reloading it. The file is held open and only what changed is read:
+//   CSV data file   lines appended since the last scan; as on load, a line
+//                   for a roll already present is a duplicate and skipped
+//   journal mode    entries appended to the journal, following it across a rotation
+//   anything else   (a file rewritten or replaced, or binary) reloaded into a
+//                   scratch store and diffed against the records by roll
+// A WatchService on the file's directory triggers the scans, which run on a
+// background thread; rescan() asks for one directly. Each result is handed to
+// the owner thread to apply. The application's own writes go through
+// ownWrite() so they are never read back as outside changes.
+class DataFileWatcher implements Closeable {
+    // A burst of change events within this window is read by one scan
+    static final long SETTLE_MILLIS = 50;
+
+    private static final int READ_CHUNK = 64 * 1024;
+    // Bytes before the read position compared to spot a file rewritten in place
+    private static final int TAIL_CHECK_BYTES = 64;
+    private static final byte[] NO_BYTES = new byte[0];
+
+    // Called on the owner thread
+    interface Listener {
+        void changed(Update update);
+    }
+
+    private final File file;
+    private final SnapshotFormat format; // null when tailing a journal
+    private final Executor owner;
+    private final Listener listener;
+    private final ScheduledExecutorService scanner = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "data-file-watcher");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean scanQueued = new AtomicBoolean();
+    private volatile boolean reportEmptyScan;
+    private volatile int ownWrites;
+    private WatchService watchService;
+
+    // Guarded by this: the open file and how far it has been read
+    private FileChannel channel;
+    private Object channelKey;
+    private long offset;
+    private long modified;
+    private byte[] tailCheck = NO_BYTES;
+
+    private DataFileWatcher(File file, SnapshotFormat format, Executor owner, Listener listener) {
+        this.file = file.getAbsoluteFile();
+        this.format = format;
+        this.owner = owner;
+        this.listener = listener;
+    }
+
+    // Watches a data file the application rewrites whole on each save
+    static DataFileWatcher forSnapshot(File dataFile, SnapshotFormat format, Executor owner, Listener listener) {
+        return new DataFileWatcher(dataFile, format, owner, listener);
+    }
+
+    // Watches the journal in journal mode; the snapshot only changes by
+    // compaction, which leaves the records as they were
+    static DataFileWatcher forJournal(StudentJournal journal, Executor owner, Listener listener) {
+        return new DataFileWatcher(journal.journalFile(), null, owner, listener);
+    }
+
+    File file() {
+        return file;
+    }
+
+    // Takes the file as it is now as already loaded and starts watching it.
+    // Without a WatchService for its file system only rescan() finds changes.
+    void start() {
+        synchronized (this) {
+            rebaseline();
+        }
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            file.getParentFile().toPath().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException | UnsupportedOperationException e) {
+            StudentLog.warn("Not watching " + file + " for changes: " + e.getMessage());
+            return;
+        }
+        Thread watching = new Thread(this::watch, "data-file-events");
+        watching.setDaemon(true);
+        watching.start();
+    }
+
+    // Scans now and reports the result even when nothing changed
+    void rescan() {
+        reportEmptyScan = true;
+        requestScan(0);
+    }
+
+    // Runs a write the application makes to the file, then takes the result as
+    // read. Outside changes that came before it are reported first.
+    void ownWrite(WriteBehindSaver.PendingWrite write) throws IOException {
+        synchronized (this) {
+            scanAndReport(false);
+            try {
+                write.write();
+            } finally {
+                ownWrites++;
+                rebaseline();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+        scanner.shutdownNow();
+        synchronized (this) {
+            closeChannel();
+        }
+    }
+
+    private void watch() {
+        String name = file.getName();
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                            || name.equals(String.valueOf(event.context()))) {
+                        requestScan(SETTLE_MILLIS);
+                    }
+                }
+                if (!key.reset()) {
+                    return;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Closed
+        }
+    }
+
+    private void requestScan(long delayMillis) {
+        if (scanQueued.compareAndSet(false, true)) {
+            try {
+                scanner.schedule(() -> {
+                    scanQueued.set(false);
+                    boolean reportEmpty = reportEmptyScan;
+                    reportEmptyScan = false;
+                    synchronized (this) {
+                        scanAndReport(reportEmpty);
+                    }
+                }, delayMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // Closed
+            }
+        }
+    }
+
+    private void scanAndReport(boolean reportEmpty) {
+        Update update;
+        try {
+            update = scan();
+        } catch (IOException e) {
+            StudentLog.error("Error reading changes to " + file + ": " + e.getMessage());
+            return;
+        }
+        if (reportEmpty || !update.isEmpty()) {
+            owner.execute(() -> listener.changed(update));
+        }
+    }
+
+    // Reads what changed since the last scan
+    private Update scan() throws IOException {
+        BasicFileAttributes attributes = attributes();
+        List<StudentJournal.Entry> entries = new ArrayList<>();
+        if (format == null) {
+            // Finish the journal that was open even if it has been rotated aside,
+            // then start on the one now in its place
+            if (channel != null) {
+                readLines(entries);
+            }
+            if (attributes == null) {
+                closeChannel();
+            } else if (channel == null || !isOpenFile(attributes)) {
+                open(0);
+                readLines(entries);
+            } else if (channel.size() < offset) {
+                // Truncated in place; entries are absolute, so reading it again is safe
+                offset = 0;
+                readLines(entries);
+            }
+            return new Update(entries, null);
+        }
+
+        if (attributes == null) {
+            // Deleted: the records stay, and the next save writes the file again
+            closeChannel();
+            return new Update(entries, null);
+        }
+        if (channel != null && isOpenFile(attributes) && tailUnchanged()) {
+            long size = channel.size();
+            if (size == offset && attributes.lastModifiedTime().toMillis() == modified) {
+                return new Update(entries, null);
+            }
+            if (size > offset && format == SnapshotFormat.CSV) {
+                modified = attributes.lastModifiedTime().toMillis();
+                readLines(entries);
+                return new Update(entries, null);
+            }
+        }
+
+        // Rewritten or replaced; only a reload shows what changed
+        open(0);
+        long size = channel.size();
+        StudentStore replacement = new StudentStore();
+        FastStudentLoader.LoadReport report = format.read(file, replacement);
+        StudentLog.skipped(file.getName(), report.rejected, report.rejectedSamples);
+        offset = size;
+        modified = attributes.lastModifiedTime().toMillis();
+        tailCheck = readTailCheck();
+        return new Update(entries, replacement);
+    }
+
+    // Reads the complete lines from offset to the end of the open file. A
+    // last line still being written is left for the next scan.
+    private void readLines(List<StudentJournal.Entry> entries) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(READ_CHUNK);
+        byte[] carry = NO_BYTES;
+        long position = offset;
+        int skipped = 0;
+        while (true) {
+            buffer.clear();
+            int n = channel.read(buffer, position);
+            if (n <= 0) {
+                break;
+            }
+            position += n;
+            byte[] bytes = buffer.array();
+            int start = 0;
+            for (int i = 0; i < n; i++) {
+                if (bytes[i] != '\n') {
+                    continue;
+                }
+                if (carry.length > 0) {
+                    byte[] line = Arrays.copyOf(carry, carry.length + i);
+                    System.arraycopy(bytes, 0, line, carry.length, i);
+                    skipped += parseLine(line, 0, line.length, entries);
+                    carry = NO_BYTES;
+                } else {
+                    skipped += parseLine(bytes, start, i - start, entries);
+                }
+                start = i + 1;
+                offset = position - n + start;
+            }
+            if (start < n) {
+                byte[] rest = Arrays.copyOf(carry, carry.length + n - start);
+                System.arraycopy(bytes, start, rest, carry.length, n - start);
+                carry = rest;
+            }
+        }
+        StudentLog.skipped("the lines appended to " + file.getName(), skipped, Collections.<String>emptyList());
+        tailCheck = readTailCheck();
+    }
+
+    // Adds the entry for one appended line; returns 1 when the line is skipped.
+    // The line number is not known this far into a file, so rejects show 0.
+    private int parseLine(byte[] bytes, int from, int length, List<StudentJournal.Entry> entries) {
+        if (length > 0 && bytes[from + length - 1] == '\r') {
+            length--;
+        }
+        String line = new String(bytes, from, length, StandardCharsets.UTF_8);
+        if (line.trim().isEmpty()) {
+            return 0;
+        }
+        try {
+            entries.add(format == null ? StudentJournal.Entry.parse(line)
+                : StudentJournal.Entry.upsert(StudentCsv.parse(line, 0)));
+            return 0;
+        } catch (IllegalArgumentException e) {
+            StudentLog.rejected(file.getName(), 0, e.getMessage(), line);
+            return 1;
+        }
+    }
+
+    // Takes the file as it is now as read, after a load or one of our own writes
+    private void rebaseline() {
+        try {
+            BasicFileAttributes attributes = attributes();
+            if (attributes == null) {
+                closeChannel();
+                return;
+            }
+            if (channel == null || !isOpenFile(attributes)) {
+                open(0);
+            }
+            offset = channel.size();
+            modified = attributes.lastModifiedTime().toMillis();
+            tailCheck = readTailCheck();
+        } catch (IOException e) {
+            StudentLog.error("Error reading " + file + ": " + e.getMessage());
+            closeChannel();
+        }
+    }
+
+    private BasicFileAttributes attributes() throws IOException {
+        try {
+            return Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    // Whether the path still names the open file. File systems without file
+    // keys only tell a replacement apart by its being shorter.
+    private boolean isOpenFile(BasicFileAttributes attributes) throws IOException {
+        if (channelKey != null) {
+            return channelKey.equals(attributes.fileKey());
+        }
+        return attributes.fileKey() == null && attributes.size() >= channel.size();
+    }
+
+    private boolean tailUnchanged() throws IOException {
+        return channel.size() >= offset && Arrays.equals(tailCheck, readTailCheck());
+    }
+
+    private byte[] readTailCheck() throws IOException {
+        int length = (int) Math.min(offset, TAIL_CHECK_BYTES);
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining() && channel.read(buffer, offset - length + buffer.position()) > 0) {
+            // Keep reading
+        }
+        return buffer.array();
+    }
+
+    private void open(long position) throws IOException {
+        closeChannel();
+        Path path = file.toPath();
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        channelKey = Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+        offset = position;
+    }
+
+    private void closeChannel() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Only read from
+        }
+        channel = null;
+        channelKey = null;
+        offset = 0;
+        tailCheck = NO_BYTES;
+    }
+
+    // Outside changes found by one scan
+    final class Update {
+        private final List<StudentJournal.Entry> entries;
+        private final StudentStore replacement; // the whole file, when it was reloaded
+        private final boolean appendedRecords; // CSV lines rather than journal entries
+        private final int scannedAfter;
+
+        private Update(List<StudentJournal.Entry> entries, StudentStore replacement) {
+            this.entries = entries;
+            this.replacement = replacement;
+            this.appendedRecords = format == SnapshotFormat.CSV;
+            this.scannedAfter = ownWrites;
+        }
+
+        boolean isEmpty() {
+            return entries.isEmpty() && replacement == null;
+        }
+
+        // Changes that bring store in line with the file, in order. A reloaded
+        // file is diffed against store here, so call this on the owner thread.
+        List<StudentJournal.Entry> entriesFor(StudentStore store) {
+            if (replacement != null) {
+                return diff(store, replacement);
+            }
+            return appendedRecords ? newRecords(store, entries) : entries;
+        }
+
+        // True when the application has written the file since the scan; a
+        // snapshot written then does not hold these changes
+        boolean overwritten() {
+            return ownWrites != scannedAfter;
+        }
+    }
+
+    // Appended lines the loader would keep: the first for each roll not yet in store
+    private static List<StudentJournal.Entry> newRecords(StudentStore store, List<StudentJournal.Entry> appended) {
+        List<StudentJournal.Entry> entries = new ArrayList<>();
+        Set<Integer> added = new HashSet<>();
+        for (StudentJournal.Entry entry : appended) {
+            if (store.contains(entry.rollNumber) || !added.add(entry.rollNumber)) {
+                StudentLog.rejected("appended line", 0, "duplicate roll number " + entry.rollNumber,
+                    StudentLog.rejectsLogged() ? StudentCsv.format(entry.student) : null);
+            } else {
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    private static List<StudentJournal.Entry> diff(StudentStore current, StudentStore replacement) {
+        List<StudentJournal.Entry> entries = new ArrayList<>();
+        for (int i = 0; i < replacement.size(); i++) {
+            int position = current.indexOf(replacement.rollAt(i));
+            if (position < 0
+                    || Double.compare(current.marksAt(position), replacement.marksAt(i)) != 0
+                    || current.nameLengthAt(position) != replacement.nameLengthAt(i)
+                    || !current.nameAt(position).equals(replacement.nameAt(i))) {
+                entries.add(StudentJournal.Entry.upsert(replacement.get(i)));
+            }
+        }
+        for (int i = 0; i < current.size(); i++) {
+            int roll = current.rollAt(i);
+            if (!replacement.contains(roll)) {
+                entries.add(new StudentJournal.Entry(roll, null));
+            }
+        }
+        return entries;
+    }
+}
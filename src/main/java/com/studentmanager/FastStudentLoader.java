@@ -0,0 +1,488 @@
+package com.studentmanager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Bulk loader for the roll,name,marks data file. The file is memory-mapped,
+// cut into line-aligned chunks and each chunk is parsed on its own thread by a
+// byte-level parser (no Scanner, no String.split). Parsed chunks are merged
+// into the store in file order, and problems are reported once at the end.
+public final class FastStudentLoader {
+    // Files smaller than this are parsed on the calling thread
+    private static final long MIN_PARALLEL_BYTES = 1L << 20;
+    // Upper bound for a single mapping; also keeps chunks well below 2 GB
+    private static final long MAX_CHUNK_BYTES = 256L << 20;
+    private static final int MAX_REPORTED_REJECTS = 20;
+
+    private FastStudentLoader() {
+    }
+
+    // Outcome of one load, printed by the caller as a single summary
+    public static final class LoadReport {
+        public final int loaded;
+        public final int rejected;
+        public final long bytes;
+        public final long nanos;
+        public final List<String> rejectedSamples;
+
+        LoadReport(int loaded, int rejected, long bytes, long nanos, List<String> rejectedSamples) {
+            this.loaded = loaded;
+            this.rejected = rejected;
+            this.bytes = bytes;
+            this.nanos = nanos;
+            this.rejectedSamples = rejectedSamples;
+        }
+
+        public String summary() {
+            double seconds = Math.max(nanos, 1) / 1e9;
+            return String.format("Loaded %d students in %.1f ms (%.1f MB/s, %.0f records/s), %d lines rejected",
+                loaded, nanos / 1e6, bytes / 1048576.0 / seconds, loaded / seconds, rejected);
+        }
+    }
+
+    public static LoadReport load(File file, StudentStore store) throws IOException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        return load(file, store, threads);
+    }
+
+    public static LoadReport load(File file, StudentStore store, int threads) throws IOException {
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long[] bounds = chunkBounds(channel, size, threads);
+            int chunkCount = bounds.length - 1;
+
+            List<ParsedChunk> parsed = new ArrayList<>(chunkCount);
+            if (chunkCount == 1) {
+                parsed.add(parseChunk(channel, bounds[0], bounds[1]));
+            } else {
+                ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, chunkCount));
+                try {
+                    List<Future<ParsedChunk>> futures = new ArrayList<>(chunkCount);
+                    for (int i = 0; i < chunkCount; i++) {
+                        final long from = bounds[i];
+                        final long to = bounds[i + 1];
+                        futures.add(pool.submit(() -> parseChunk(channel, from, to)));
+                    }
+                    for (Future<ParsedChunk> future : futures) {
+                        parsed.add(future.get());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Load interrupted", e);
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof IOException) {
+                        throw (IOException) cause;
+                    }
+                    throw new IOException("Load failed: " + cause, cause);
+                } finally {
+                    pool.shutdownNow();
+                }
+            }
+            return merge(parsed, store, file.getName(), size, start);
+        }
+    }
+
+    private static LoadReport merge(List<ParsedChunk> parsed, StudentStore store, String source, long size, long start) {
+        int total = 0;
+        for (ParsedChunk chunk : parsed) {
+            total += chunk.count;
+        }
+        store.ensureCapacity(store.size() + total);
+
+        int loaded = 0;
+        int rejected = 0;
+        long lineOffset = 0;
+        List<String> samples = new ArrayList<>();
+        for (ParsedChunk chunk : parsed) {
+            int reject = 0;
+            for (int i = 0; i < chunk.count; i++) {
+                // Rejected lines are interleaved by line number with the accepted ones
+                while (reject < chunk.rejectCount && chunk.rejectLines[reject] < chunk.lines[i]) {
+                    rejected++;
+                    reject(samples, source, lineOffset, chunk, reject);
+                    reject++;
+                }
+                if (store.add(chunk.rolls[i], chunk.names[i], chunk.marks[i])) {
+                    loaded++;
+                } else {
+                    rejected++;
+                    long line = lineOffset + chunk.lines[i];
+                    String reason = "duplicate roll number " + chunk.rolls[i];
+                    sample(samples, line, reason);
+                    StudentLog.rejected(source, line, reason, StudentLog.rejectsLogged()
+                        ? StudentCsv.format(new Student(chunk.rolls[i], chunk.names[i], chunk.marks[i])) : null);
+                }
+            }
+            for (; reject < chunk.rejectCount; reject++) {
+                rejected++;
+                reject(samples, source, lineOffset, chunk, reject);
+            }
+            lineOffset += chunk.lineCount;
+        }
+        return new LoadReport(loaded, rejected, size, System.nanoTime() - start, samples);
+    }
+
+    private static void reject(List<String> samples, String source, long lineOffset, ParsedChunk chunk, int reject) {
+        long line = lineOffset + chunk.rejectLines[reject];
+        String reason = chunk.rejectReasons.get(reject);
+        sample(samples, line, reason);
+        StudentLog.rejected(source, line, reason, chunk.rejectTexts == null ? null : chunk.rejectTexts.get(reject));
+    }
+
+    private static void sample(List<String> samples, long line, String reason) {
+        if (samples.size() < MAX_REPORTED_REJECTS) {
+            samples.add("line " + line + ": " + reason);
+        }
+    }
+
+    // Splits [0, size) into roughly equal ranges that each end just after a newline
+    private static long[] chunkBounds(FileChannel channel, long size, int threads) throws IOException {
+        int chunks = size < MIN_PARALLEL_BYTES ? 1 : Math.max(1, threads);
+        while (size / chunks > MAX_CHUNK_BYTES) {
+            chunks *= 2;
+        }
+        long[] bounds = new long[chunks + 1];
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        int n = 1;
+        for (int i = 1; i < chunks; i++) {
+            long pos = Math.max(size * i / chunks, bounds[n - 1]);
+            long lineEnd = nextLineStart(channel, pos, size, probe);
+            if (lineEnd > bounds[n - 1] && lineEnd < size) {
+                bounds[n++] = lineEnd;
+            }
+        }
+        bounds[n++] = size;
+        return Arrays.copyOf(bounds, n);
+    }
+
+    private static long nextLineStart(FileChannel channel, long pos, long size, ByteBuffer probe) throws IOException {
+        while (pos < size) {
+            probe.clear();
+            int read = channel.read(probe, pos);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') {
+                    return pos + i + 1;
+                }
+            }
+            pos += read;
+        }
+        return size;
+    }
+
+    private static ParsedChunk parseChunk(FileChannel channel, long from, long to) throws IOException {
+        ParsedChunk chunk = new ParsedChunk((int) Math.min((to - from) / 16 + 16, Integer.MAX_VALUE - 8));
+        if (to > from) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+            new LineParser(buffer, chunk).run();
+        }
+        return chunk;
+    }
+
+    // Columns for one chunk plus its rejected lines, all indexed by chunk-local line number
+    private static final class ParsedChunk {
+        int count;
+        int[] rolls;
+        double[] marks;
+        String[] names;
+        long[] lines;
+        long lineCount;
+
+        int rejectCount;
+        long[] rejectLines = new long[4];
+        List<String> rejectReasons = new ArrayList<>();
+        // Raw rejected lines, kept only for the reject log
+        List<String> rejectTexts = StudentLog.rejectsLogged() ? new ArrayList<>() : null;
+
+        ParsedChunk(int expected) {
+            rolls = new int[expected];
+            marks = new double[expected];
+            names = new String[expected];
+            lines = new long[expected];
+        }
+
+        void add(int roll, String name, double mark, long line) {
+            if (count == rolls.length) {
+                int grown = rolls.length + (rolls.length >> 1) + 16;
+                rolls = Arrays.copyOf(rolls, grown);
+                marks = Arrays.copyOf(marks, grown);
+                names = Arrays.copyOf(names, grown);
+                lines = Arrays.copyOf(lines, grown);
+            }
+            rolls[count] = roll;
+            names[count] = name;
+            marks[count] = mark;
+            lines[count] = line;
+            count++;
+        }
+
+        void reject(long line, String reason, String text) {
+            if (rejectCount == rejectLines.length) {
+                rejectLines = Arrays.copyOf(rejectLines, rejectCount * 2);
+            }
+            rejectLines[rejectCount++] = line;
+            rejectReasons.add(reason);
+            if (rejectTexts != null) {
+                rejectTexts.add(text);
+            }
+        }
+    }
+
+    // Hand-written parser for one mapped chunk: roll,name,marks per line, names
+    // optionally quoted with "" escapes, fields trimmed of spaces and tabs
+    private static final class LineParser {
+        private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+        };
+
+        private final ByteBuffer buf;
+        private final ParsedChunk out;
+        private final int limit;
+        private byte[] scratch = new byte[64];
+        private int pos;
+        private int currentStart; // content of the line being parsed, for the reject log
+        private int currentEnd;
+
+        LineParser(ByteBuffer buf, ParsedChunk out) {
+            this.buf = buf;
+            this.out = out;
+            this.limit = buf.limit();
+        }
+
+        void run() {
+            long line = 0;
+            while (pos < limit) {
+                line++;
+                int lineStart = pos;
+                int lineEnd = lineStart;
+                while (lineEnd < limit && buf.get(lineEnd) != '\n') {
+                    lineEnd++;
+                }
+                int contentEnd = lineEnd;
+                if (contentEnd > lineStart && buf.get(contentEnd - 1) == '\r') {
+                    contentEnd--;
+                }
+                parseLine(lineStart, contentEnd, line);
+                pos = lineEnd + 1;
+            }
+            out.lineCount = line;
+        }
+
+        private void parseLine(int start, int end, long line) {
+            currentStart = start;
+            currentEnd = end;
+            int s = skipBlank(start, end);
+            int e = trimEnd(s, end);
+            if (s == e) {
+                return; // blank lines are ignored, as before
+            }
+
+            // Roll number
+            int comma = indexOf(',', s, e);
+            if (comma < 0) {
+                reject(line, "expected 3 parts");
+                return;
+            }
+            int rollStart = skipBlank(s, comma);
+            int rollEnd = trimEnd(rollStart, comma);
+            long roll = 0;
+            boolean negative = false;
+            int i = rollStart;
+            if (i < rollEnd && (buf.get(i) == '-' || buf.get(i) == '+')) {
+                negative = buf.get(i) == '-';
+                i++;
+            }
+            if (i == rollEnd) {
+                reject(line, "invalid roll number");
+                return;
+            }
+            for (; i < rollEnd; i++) {
+                int d = buf.get(i) - '0';
+                if (d < 0 || d > 9 || (roll = roll * 10 + d) > 2147483648L) {
+                    reject(line, "invalid roll number");
+                    return;
+                }
+            }
+            roll = negative ? -roll : roll;
+            if (roll > Integer.MAX_VALUE) {
+                reject(line, "invalid roll number");
+                return;
+            }
+
+            // Name, quoted or bare
+            String name;
+            int nameEnd;
+            int nameStart = skipBlank(comma + 1, e);
+            if (nameStart < e && buf.get(nameStart) == '"') {
+                int len = 0;
+                int j = nameStart + 1;
+                boolean closed = false;
+                while (j < e) {
+                    byte b = buf.get(j);
+                    if (b == '"') {
+                        if (j + 1 < e && buf.get(j + 1) == '"') {
+                            len = put(len, b);
+                            j += 2;
+                            continue;
+                        }
+                        closed = true;
+                        j++;
+                        break;
+                    }
+                    len = put(len, b);
+                    j++;
+                }
+                if (!closed) {
+                    reject(line, "unterminated quoted name");
+                    return;
+                }
+                nameEnd = indexOf(',', j, e);
+                name = new String(scratch, 0, len, StandardCharsets.UTF_8).trim();
+            } else {
+                nameEnd = indexOf(',', comma + 1, e);
+                if (nameEnd < 0) {
+                    reject(line, "expected 3 parts");
+                    return;
+                }
+                int bareEnd = trimEnd(nameStart, nameEnd);
+                int len = 0;
+                for (int j = nameStart; j < bareEnd; j++) {
+                    len = put(len, buf.get(j));
+                }
+                name = new String(scratch, 0, len, StandardCharsets.UTF_8);
+            }
+            if (nameEnd < 0 || indexOf(',', nameEnd + 1, e) >= 0) {
+                reject(line, "expected 3 parts");
+                return;
+            }
+            if (name.isEmpty()) {
+                reject(line, "empty name");
+                return;
+            }
+
+            // Marks
+            int marksStart = skipBlank(nameEnd + 1, e);
+            double marks = parseMarks(marksStart, e);
+            if (Double.isNaN(marks) && !isLiteralNaN(marksStart, e)) {
+                reject(line, "invalid marks");
+                return;
+            }
+            out.add((int) roll, name, marks, line);
+        }
+
+        // Fast path for plain decimals such as 87.5: an exact mantissa divided by an
+        // exact power of ten rounds correctly. Anything else goes to Double.parseDouble.
+        private double parseMarks(int start, int end) {
+            int i = start;
+            boolean negative = false;
+            if (i < end && (buf.get(i) == '-' || buf.get(i) == '+')) {
+                negative = buf.get(i) == '-';
+                i++;
+            }
+            long mantissa = 0;
+            int digits = 0;
+            int fraction = -1;
+            for (; i < end; i++) {
+                byte b = buf.get(i);
+                if (b == '.' && fraction < 0) {
+                    fraction = 0;
+                    continue;
+                }
+                int d = b - '0';
+                if (d < 0 || d > 9 || digits >= 15) {
+                    return slowParse(start, end);
+                }
+                mantissa = mantissa * 10 + d;
+                digits++;
+                if (fraction >= 0) {
+                    fraction++;
+                }
+            }
+            if (digits == 0) {
+                return slowParse(start, end);
+            }
+            double value = fraction > 0 ? mantissa / POWERS_OF_TEN[fraction] : mantissa;
+            return negative ? -value : value;
+        }
+
+        private double slowParse(int start, int end) {
+            int len = 0;
+            for (int i = start; i < end; i++) {
+                len = put(len, buf.get(i));
+            }
+            try {
+                return Double.parseDouble(new String(scratch, 0, len, StandardCharsets.ISO_8859_1));
+            } catch (NumberFormatException ex) {
+                return Double.NaN;
+            }
+        }
+
+        private boolean isLiteralNaN(int start, int end) {
+            return end - start == 3 && buf.get(start) == 'N' && buf.get(start + 1) == 'a' && buf.get(start + 2) == 'N';
+        }
+
+        private int put(int len, byte b) {
+            if (len == scratch.length) {
+                scratch = Arrays.copyOf(scratch, len * 2);
+            }
+            scratch[len] = b;
+            return len + 1;
+        }
+
+        private int indexOf(char c, int from, int to) {
+            for (int i = from; i < to; i++) {
+                if (buf.get(i) == c) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private void reject(long line, String reason) {
+            String text = null;
+            if (out.rejectTexts != null) {
+                byte[] bytes = new byte[currentEnd - currentStart];
+                for (int i = 0; i < bytes.length; i++) {
+                    bytes[i] = buf.get(currentStart + i);
+                }
+                text = new String(bytes, StandardCharsets.UTF_8);
+            }
+            out.reject(line, reason, text);
+        }
+
+        private int skipBlank(int from, int to) {
+            while (from < to && isBlank(buf.get(from))) {
+                from++;
+            }
+            return from;
+        }
+
+        private int trimEnd(int from, int to) {
+            while (to > from && isBlank(buf.get(to - 1))) {
+                to--;
+            }
+            return to;
+        }
+
+        private static boolean isBlank(byte b) {
+            return b == ' ' || b == '\t' || b == '\r';
+        }
+    }
+}
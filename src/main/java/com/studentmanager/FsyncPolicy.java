@@ -0,0 +1,70 @@
+package com.studentmanager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+
+// When a save forces what it wrote to the storage device, from
+// -Dstudentmanager.fsync. CLOSE (the default) forces each file once it is
+// complete, before it replaces the old one, and the directory after the
+// rename; a journal is forced once per flush. BUFFER also forces a file after
+// every buffer drained into it, at the cost of a much slower save. NONE
+// leaves it all to the operating system: saves still replace the file in one
+// rename, which survives the process dying but not the machine.
+enum FsyncPolicy {
+    NONE, CLOSE, BUFFER;
+
+    static final String PROPERTY = "studentmanager.fsync";
+
+    // CLOSE when unset or unknown; an unknown value is warned about, not fatal to the save
+    static FsyncPolicy configured() {
+        String name = System.getProperty(PROPERTY);
+        if (name == null) {
+            return CLOSE;
+        }
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            StudentLog.warn("Unknown -D" + PROPERTY + " policy '" + name + "'; using close");
+            return CLOSE;
+        }
+    }
+
+    // Called after a buffer of the file has been written to channel
+    void drained(FileChannel channel) throws IOException {
+        if (this == BUFFER) {
+            channel.force(false);
+        }
+    }
+
+    // Called once everything written to channel must be durable
+    void completed(FileChannel channel) throws IOException {
+        if (this != NONE) {
+            channel.force(false);
+        }
+    }
+
+    // Called once a file written and closed elsewhere must be durable
+    void completed(File file) throws IOException {
+        if (this != NONE) {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+                channel.force(false);
+            }
+        }
+    }
+
+    // Makes a rename or delete in directory durable. Not every platform can
+    // open a directory (Windows cannot), so this is best effort.
+    void directoryChanged(File directory) {
+        if (this == NONE || directory == null) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // The rename itself is done; only its durability is left to the OS
+        }
+    }
+}
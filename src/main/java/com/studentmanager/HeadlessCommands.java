@@ -0,0 +1,312 @@
+package com.studentmanager;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+
+// Non-interactive commands for scripts such as the nightly roster sync. They
+// work on the same data file as the GUI, picked by the same -D properties
+// (snapshot format, journal or sharded mode), and never touch Swing:
+//   import <csv>    merge records into the data file; known rolls are updated
+//   export <file>   write every record to a file, format by extension (.bin = binary, .pack = compact)
+//   stats           print count, average, spread, quartiles, pass rate and grade bands
+//   serve [port]    run the JSON API (StudentApiServer) until the process is stopped
+// Run them while the GUI is closed, as both rewrite the same file.
+final class HeadlessCommands {
+    // Records parsed, applied and (in journal mode) flushed together
+    static final int BATCH_SIZE = 100_000;
+    static final String USAGE = "Usage: Main [import <csv> | export <file> | stats | serve [port]]";
+
+    private final PrintStream out;
+    private final SnapshotFormat dataFormat = SnapshotFormat.configured();
+    private final File dataFile = new File(dataFormat.defaultFileName());
+    private ShardedStorage shards; // non-null in sharded mode
+
+    HeadlessCommands(PrintStream out) {
+        this.out = out;
+    }
+
+    // True when args name a headless command rather than the interactive menu
+    static boolean handles(String[] args) {
+        return args.length > 0;
+    }
+
+    // Runs one command and returns the process exit status
+    int run(String[] args) {
+        try {
+            if (ShardedStorage.isConfigured()) {
+                shards = new ShardedStorage(ShardedStorage.directoryFor(dataFile), dataFormat);
+            }
+            if (args.length == 2 && args[0].equals("import")) {
+                importCsv(new File(args[1]));
+            } else if (args.length == 2 && args[0].equals("export")) {
+                export(new File(args[1]));
+            } else if (args.length == 1 && args[0].equals("stats")) {
+                stats();
+            } else if (args.length <= 2 && args[0].equals("serve")) {
+                serve(args.length == 2 ? parsePort(args[1]) : StudentApiServer.DEFAULT_PORT);
+            } else {
+                out.println(USAGE);
+                return 2;
+            }
+            return 0;
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            return 1;
+        } catch (IllegalArgumentException e) {
+            // A bad argument or -D setting, not a failure of the command itself
+            System.err.println("Error: " + e.getMessage());
+            out.println(USAGE);
+            return 2;
+        }
+    }
+
+    private static int parsePort(String text) {
+        try {
+            int port = Integer.parseInt(text.trim());
+            if (port >= 0 && port <= 0xFFFF) {
+                return port;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException("Invalid port: " + text);
+    }
+
+    void importCsv(File csv) throws IOException {
+        if (!csv.isFile()) {
+            throw new IOException("No such file: " + csv);
+        }
+        long start = System.nanoTime();
+        StudentJournal journal = StudentJournal.isConfigured() ? new StudentJournal(dataFile) : null;
+        try {
+            StudentStore store = load(journal, false);
+            int added = 0;
+            int updated = 0;
+            int rejected = 0;
+            String firstRejected = null;
+            long lineNumber = 0;
+            Student[] batch = new Student[BATCH_SIZE];
+            boolean[] existed = new boolean[BATCH_SIZE];
+            CountingInputStream counted = new CountingInputStream(new FileInputStream(csv));
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(counted, StandardCharsets.UTF_8), 1 << 16)) {
+                while (true) {
+                    int count = 0;
+                    String line;
+                    while (count < BATCH_SIZE && (line = reader.readLine()) != null) {
+                        lineNumber++;
+                        if (line.trim().isEmpty()) {
+                            continue;
+                        }
+                        try {
+                            Student student = StudentCsv.parse(line, 0);
+                            batch[count++] = student;
+                        } catch (IllegalArgumentException e) {
+                            StudentLog.rejected(csv.getName(), lineNumber, e.getMessage(), line);
+                            if (rejected++ == 0) {
+                                firstRejected = "line " + lineNumber + ": " + e.getMessage();
+                            }
+                        }
+                    }
+                    if (count == 0) {
+                        break;
+                    }
+                    for (int i = 0; i < count; i++) {
+                        Student student = batch[i];
+                        existed[i] = store.update(student.getRollNumber(), student.getName(), student.getMarks());
+                        if (shards != null) {
+                            shards.markDirty(student.getRollNumber());
+                        }
+                        if (existed[i]) {
+                            updated++;
+                        } else {
+                            store.add(student);
+                            added++;
+                        }
+                    }
+                    if (journal != null) {
+                        for (int i = 0; i < count; i++) {
+                            if (existed[i]) {
+                                journal.recordUpdate(batch[i]);
+                            } else {
+                                journal.recordAdd(batch[i]);
+                            }
+                        }
+                        journal.flush();
+                    }
+                    progress("Imported", added + updated, counted.count, csv.length(), start);
+                }
+            }
+
+            StudentLog.skipped(csv.getName(), rejected, firstRejected == null
+                ? Collections.<String>emptyList() : Collections.singletonList(firstRejected));
+            if (journal != null) {
+                journal.compactIfNeeded(store);
+            } else if (shards != null) {
+                shards.write(store, shards.takeDirtyShards());
+            } else {
+                dataFormat.write(store, dataFile);
+            }
+            out.printf("Import done: %,d added, %,d updated, %,d rejected; %,d students in %s (%.1f s)%n",
+                added, updated, rejected, store.size(), dataFile, (System.nanoTime() - start) / 1e9);
+        } finally {
+            if (journal != null) {
+                journal.close();
+            }
+        }
+    }
+
+    void export(File target) throws IOException {
+        long start = System.nanoTime();
+        StudentStore store = loadReadOnly();
+        SnapshotFormat.forFile(target).write(store, target);
+        out.printf("Exported %,d students to %s (%,d bytes, %.1f s)%n",
+            store.size(), target, target.length(), (System.nanoTime() - start) / 1e9);
+    }
+
+    void stats() throws IOException {
+        StudentStore store = loadReadOnly();
+        int count = store.size();
+        out.printf("Students: %,d%n", count);
+        if (count == 0) {
+            return;
+        }
+        long start = System.nanoTime();
+        CohortStatistics stats = CohortStatistics.of(store);
+        double millis = (System.nanoTime() - start) / 1e6;
+        out.printf("Average:  %.2f%n", stats.mean);
+        out.printf("Std dev:  %.2f%n", stats.standardDeviation);
+        if (stats.topPosition < 0) {
+            out.println("Top:      - (no marks are numbers)");
+        } else {
+            Student top = store.get(stats.topPosition);
+            out.printf("Top:      %s (Roll: %d) %.2f%n", top.getName(), top.getRollNumber(), top.getMarks());
+        }
+        out.printf("Min:      %.2f%n", stats.min);
+        out.printf("Q1:       %.2f%n", stats.q1);
+        out.printf("Median:   %.2f%n", stats.median);
+        out.printf("Q3:       %.2f%n", stats.q3);
+        out.printf("Max:      %.2f%n", stats.max);
+        out.printf("Passed:   %,d (%.1f%%, pass mark %.2f)%n", stats.passed, stats.passRate() * 100, stats.passMark);
+        out.println("Grades:");
+        for (int band = 0; band < CohortStatistics.GRADE_BANDS.length; band++) {
+            int inBand = stats.bandCount(band);
+            out.printf("  %s %-6s %,10d  %5.1f%%%n", CohortStatistics.GRADE_BANDS[band],
+                CohortStatistics.GRADE_BAND_RANGES[band], inBand, inBand * 100.0 / count);
+        }
+        out.printf("(computed in %.1f ms)%n", millis);
+    }
+
+    void serve(int port) throws IOException {
+        StudentMetrics.registerMBean();
+        StudentJournal journal = StudentJournal.isConfigured() ? new StudentJournal(dataFile) : null;
+        StudentRepository repository = new StudentRepository();
+        StudentStore loaded = load(journal, false);
+        if (shards != null) {
+            // Splits a data file loaded for the first time in sharded mode
+            shards.write(loaded, shards.takeDirtyShards());
+        }
+        repository.addAll(loaded);
+        RepositoryPersistence persistence = new RepositoryPersistence(repository, dataFormat, dataFile, journal, shards);
+        StudentApiServer server = new StudentApiServer(repository, port, persistence::changed);
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(2);
+            try {
+                persistence.close();
+                if (journal != null) {
+                    journal.close();
+                }
+            } catch (IOException e) {
+                StudentLog.error("Error saving data: " + e.getMessage());
+            }
+            stopped.countDown();
+        }, "api-shutdown"));
+        server.start();
+        out.printf("Serving %,d students on http://localhost:%d/ (%s); Ctrl+C to stop%n", repository.size(),
+            server.port(), StudentApiServer.usesVirtualThreads() ? "virtual threads" : "thread pool");
+        try {
+            stopped.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Snapshot (or shards) plus, in journal mode, the edits journaled since.
+    // readOnly leaves every file as it is, for commands that only read.
+    private StudentStore load(StudentJournal journal, boolean readOnly) throws IOException {
+        StudentStore store = StudentStore.configured();
+        FastStudentLoader.LoadReport report = null;
+        String source = dataFile.getName();
+        if (shards != null && shards.exists()) {
+            report = shards.load(store);
+            source = "the shards in " + shards.directory();
+        } else if (dataFile.exists()) {
+            report = dataFormat.read(dataFile, store);
+            if (shards != null) {
+                // No shards yet: the next write splits the data file into them
+                shards.markAllDirty(store);
+            }
+        }
+        if (report != null) {
+            StudentLog.skipped(source, report.rejected, report.rejectedSamples);
+            out.println(report.summary());
+        }
+        if (journal != null) {
+            int replayed = readOnly ? journal.replayReadOnly(store) : journal.replay(store);
+            out.println("Replayed " + replayed + " journal entries.");
+        }
+        return store;
+    }
+
+    private StudentStore loadReadOnly() throws IOException {
+        if (!StudentJournal.isConfigured()) {
+            return load(null, true);
+        }
+        try (StudentJournal journal = new StudentJournal(dataFile)) {
+            return load(journal, true);
+        }
+    }
+
+    private void progress(String verb, long records, long bytes, long totalBytes, long start) {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        out.printf("%s %,d records (%d%%, %,.0f records/s)%n", verb, records,
+            totalBytes == 0 ? 100 : Math.min(100, bytes * 100 / totalBytes), records / Math.max(seconds, 1e-3));
+    }
+
+    // Counts bytes pulled from the file, for progress against its length
+    private static final class CountingInputStream extends FilterInputStream {
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+}
@@ -4,6 +4,9 @@ import java.util.Scanner;
 
 public class Main {
     public static void main(String[] args) {
+        if (HeadlessCommands.handles(args)) {
+            System.exit(new HeadlessCommands(System.out).run(args));
+        }
         StudentManager manager = new StudentManager();
         Scanner sc = new Scanner(System.in);
         int choice;
@@ -0,0 +1,168 @@
+package com.studentmanager;
+
+import java.util.Arrays;
+
+// Order-statistic tree over (marks, roll) used for ranks, percentiles and
+// range queries; see OrderStatisticTreap. Insert, delete, rank, select and
+// range count are all O(log n) expected, and a range walk costs O(log n + k).
+//
+// Keys are ordered by marks ascending and, for equal marks, roll descending:
+// walking from the top therefore yields the highest marks first and, among
+// equal marks, the lowest roll number first.
+class MarksIndex extends OrderStatisticTreap {
+    private double[] marks;
+    private int[] rolls;
+
+    MarksIndex(int expectedSize) {
+        super(expectedSize);
+        marks = new double[capacity()];
+        rolls = new int[capacity()];
+    }
+
+    // Index over the first count entries of the given columns, built bottom-up
+    // from sorted order rather than by count separate inserts
+    static MarksIndex build(double[] marks, int[] rolls, int count) {
+        MarksIndex index = new MarksIndex(count);
+        int[] order = new int[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        sort(order, new int[count], 0, count, marks, rolls);
+        for (int i = 0; i < count; i++) {
+            int node = i + 1;
+            index.marks[node] = marks[order[i]];
+            index.rolls[node] = rolls[order[i]];
+        }
+        index.buildSorted(count);
+        return index;
+    }
+
+    void insert(double mark, int roll) {
+        int node = newNode();
+        marks[node] = mark;
+        rolls[node] = roll;
+        insert(node, key(mark, roll));
+    }
+
+    boolean delete(double mark, int roll) {
+        return delete(key(mark, roll));
+    }
+
+    // Number of keys strictly before (mark, roll)
+    int countBefore(double mark, int roll) {
+        return countBefore(key(mark, roll));
+    }
+
+    // Students with marks strictly below mark
+    int countBelow(double mark) {
+        return countBefore(mark, Integer.MAX_VALUE);
+    }
+
+    // Students with marks at or below mark
+    int countAtMost(double mark) {
+        int count = countBefore(mark, Integer.MIN_VALUE);
+        return contains(key(mark, Integer.MIN_VALUE)) ? count + 1 : count;
+    }
+
+    // Students with low <= marks <= high
+    int countBetween(double low, double high) {
+        return low > high ? 0 : countAtMost(high) - countBelow(low);
+    }
+
+    // Roll at ascending position index (0 = lowest marks)
+    int selectRoll(int index) {
+        return rolls[select(index)];
+    }
+
+    double selectMarks(int index) {
+        return marks[select(index)];
+    }
+
+    // Rolls with low <= marks <= high in ascending order, at most limit of them
+    int[] rollsBetween(double low, double high, int limit) {
+        int[] out = new int[Math.min(countBetween(low, high), Math.max(limit, 0))];
+        // In-order walk starting at the first key with marks >= low
+        int[] stack = new int[64];
+        int depth = 0;
+        int t = root;
+        while (t != NIL) {
+            if (compare(low, Integer.MAX_VALUE, t) <= 0) {
+                stack = push(stack, depth++, t);
+                t = left[t];
+            } else {
+                t = right[t];
+            }
+        }
+        int n = 0;
+        while (depth > 0 && n < out.length) {
+            t = stack[--depth];
+            out[n++] = rolls[t];
+            for (t = right[t]; t != NIL; t = left[t]) {
+                stack = push(stack, depth++, t);
+            }
+        }
+        return out;
+    }
+
+    // The k best students: highest marks first, lower roll first on ties
+    int[] topRolls(int k) {
+        int n = size();
+        int count = Math.min(Math.max(k, 0), n);
+        int[] out = new int[count];
+        for (int i = 0; i < count; i++) {
+            out[i] = selectRoll(n - 1 - i);
+        }
+        return out;
+    }
+
+    @Override
+    void growKeys(int capacity) {
+        marks = Arrays.copyOf(marks, capacity);
+        rolls = Arrays.copyOf(rolls, capacity);
+    }
+
+    private static int[] push(int[] stack, int depth, int node) {
+        if (depth == stack.length) {
+            stack = Arrays.copyOf(stack, depth * 2);
+        }
+        stack[depth] = node;
+        return stack;
+    }
+
+    // Merge sort of positions by (marks ascending, roll descending)
+    private static void sort(int[] order, int[] scratch, int from, int to, double[] marks, int[] rolls) {
+        if (to - from < 2) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        sort(order, scratch, from, mid, marks, rolls);
+        sort(order, scratch, mid, to, marks, rolls);
+        if (keyCompare(order[mid - 1], order[mid], marks, rolls) <= 0) {
+            return;
+        }
+        System.arraycopy(order, from, scratch, from, to - from);
+        int i = from;
+        int j = mid;
+        for (int k = from; k < to; k++) {
+            if (j >= to || (i < mid && keyCompare(scratch[i], scratch[j], marks, rolls) <= 0)) {
+                order[k] = scratch[i++];
+            } else {
+                order[k] = scratch[j++];
+            }
+        }
+    }
+
+    private static int keyCompare(int a, int b, double[] marks, int[] rolls) {
+        int c = Double.compare(marks[a], marks[b]);
+        return c != 0 ? c : Integer.compare(rolls[b], rolls[a]);
+    }
+
+    private Probe key(double mark, int roll) {
+        return node -> compare(mark, roll, node);
+    }
+
+    private int compare(double mark, int roll, int node) {
+        int c = Double.compare(mark, marks[node]);
+        return c != 0 ? c : Integer.compare(rolls[node], roll);
+    }
+}
@@ -0,0 +1,216 @@
+package com.studentmanager;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+// Case-insensitive trigram index over student names. Every lowercase name is
+// cut into overlapping three-character grams, padded at the front so prefixes
+// of one or two characters also map to a gram, and each gram keeps a posting
+// list of roll numbers. A query walks the shortest posting list among its grams
+// and checks each candidate against the stored name.
+//
+// Deletes and renames only count the postings they leave behind; candidates
+// are always re-checked against the store, and the index rebuilds itself once
+// stale postings outnumber live ones.
+class NameIndex {
+    private static final char PAD = '\u0001';
+
+    private final StudentStore store;
+    private final Map<Long, Postings> grams = new HashMap<>();
+    private long livePostings;
+    private long stalePostings;
+
+    NameIndex(StudentStore store) {
+        this.store = store;
+        rebuild();
+    }
+
+    void added(int roll, String name) {
+        for (long gram : gramsOf(normalize(name))) {
+            postingsFor(gram).add(roll);
+            livePostings++;
+        }
+    }
+
+    void removed(String name) {
+        int count = gramsOf(normalize(name)).length;
+        livePostings -= count;
+        stalePostings += count;
+        rebuildIfStale();
+    }
+
+    void renamed(int roll, String oldName, String newName) {
+        long[] before = gramsOf(normalize(oldName));
+        long[] after = gramsOf(normalize(newName));
+        Arrays.sort(before);
+        for (long gram : after) {
+            if (Arrays.binarySearch(before, gram) < 0) {
+                postingsFor(gram).add(roll);
+                livePostings++;
+            }
+        }
+        Arrays.sort(after);
+        for (long gram : before) {
+            if (Arrays.binarySearch(after, gram) < 0) {
+                livePostings--;
+                stalePostings++;
+            }
+        }
+        rebuildIfStale();
+    }
+
+    void clear() {
+        grams.clear();
+        livePostings = 0;
+        stalePostings = 0;
+    }
+
+    // Roll numbers of up to limit students whose name contains (or, with
+    // prefixOnly, starts with) query, ignoring case
+    int[] search(String query, boolean prefixOnly, int limit) {
+        String needle = normalize(query);
+        if (needle.isEmpty() || limit <= 0) {
+            return new int[0];
+        }
+        long[] queryGrams = prefixOnly ? prefixGrams(needle) : innerGrams(needle);
+        if (queryGrams.length == 0) {
+            // One or two characters anywhere in the name: no gram narrows it down
+            return scan(needle, prefixOnly, limit);
+        }
+
+        Postings shortest = null;
+        for (long gram : queryGrams) {
+            Postings postings = grams.get(gram);
+            if (postings == null) {
+                return new int[0];
+            }
+            if (shortest == null || postings.size < shortest.size) {
+                shortest = postings;
+            }
+        }
+
+        int[] found = new int[Math.min(limit, 16)];
+        int count = 0;
+        RollIndex seen = new RollIndex();
+        for (int i = 0; i < shortest.size && count < limit; i++) {
+            int roll = shortest.rolls[i];
+            int position = store.indexOf(roll);
+            if (position < 0 || seen.containsKey(roll) || !matches(store.nameAt(position), needle, prefixOnly)) {
+                continue;
+            }
+            seen.put(roll, count);
+            if (count == found.length) {
+                found = Arrays.copyOf(found, Math.min(limit, count * 2));
+            }
+            found[count++] = roll;
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    private int[] scan(String needle, boolean prefixOnly, int limit) {
+        int[] found = new int[Math.min(limit, 16)];
+        int count = 0;
+        for (int i = 0, n = store.size(); i < n && count < limit; i++) {
+            if (matches(store.nameAt(i), needle, prefixOnly)) {
+                if (count == found.length) {
+                    found = Arrays.copyOf(found, Math.min(limit, count * 2));
+                }
+                found[count++] = store.rollAt(i);
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    private void rebuildIfStale() {
+        if (stalePostings > 1024 && stalePostings > livePostings) {
+            rebuild();
+        }
+    }
+
+    private void rebuild() {
+        clear();
+        for (int i = 0, n = store.size(); i < n; i++) {
+            added(store.rollAt(i), store.nameAt(i));
+        }
+    }
+
+    private Postings postingsFor(long gram) {
+        Postings postings = grams.get(gram);
+        if (postings == null) {
+            postings = new Postings();
+            grams.put(gram, postings);
+        }
+        return postings;
+    }
+
+    private static boolean matches(String name, String needle, boolean prefixOnly) {
+        String normalized = normalize(name);
+        return prefixOnly ? normalized.startsWith(needle) : normalized.contains(needle);
+    }
+
+    private static String normalize(String text) {
+        return text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Distinct grams of a stored name: two padded leading grams plus every inner one
+    private static long[] gramsOf(String name) {
+        String padded = "" + PAD + PAD + name;
+        long[] result = new long[Math.max(padded.length() - 2, 0)];
+        int count = 0;
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            long gram = pack(padded, i);
+            boolean duplicate = false;
+            for (int j = 0; j < count; j++) {
+                if (result[j] == gram) {
+                    duplicate = true;
+                    break;
+                }
+            }
+            if (!duplicate) {
+                result[count++] = gram;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    // Grams a prefix query must hit: the padded leading grams of the query
+    private static long[] prefixGrams(String needle) {
+        String padded = "" + PAD + PAD + needle;
+        long[] result = new long[padded.length() - 2];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = pack(padded, i);
+        }
+        return result;
+    }
+
+    // Grams a substring query must hit; none when it is shorter than three characters
+    private static long[] innerGrams(String needle) {
+        if (needle.length() < 3) {
+            return new long[0];
+        }
+        long[] result = new long[needle.length() - 2];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = pack(needle, i);
+        }
+        return result;
+    }
+
+    private static long pack(String s, int i) {
+        return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+
+    // Growable list of roll numbers for one gram
+    private static final class Postings {
+        int[] rolls = new int[4];
+        int size;
+
+        void add(int roll) {
+            if (size == rolls.length) {
+                rolls = Arrays.copyOf(rolls, size * 2);
+            }
+            rolls[size++] = roll;
+        }
+    }
+}
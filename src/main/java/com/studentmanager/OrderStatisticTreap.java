@@ -0,0 +1,297 @@
+package com.studentmanager;
+
+import java.util.Arrays;
+
+// Order-statistic tree behind MarksIndex and SortIndex: a treap whose nodes
+// live in parallel primitive arrays and carry subtree sizes, so insert,
+// delete, rank and select are all O(log n) expected. The tree itself only
+// knows node numbers; a subclass keeps the keys in its own columns indexed by
+// node, and every search takes a Probe saying where the key sought falls
+// against a node's key. Keys must be distinct.
+abstract class OrderStatisticTreap {
+    // Where a key falls against the key of node: negative before, zero equal, positive after
+    interface Probe {
+        int compareTo(int node);
+    }
+
+    static final int NIL = 0;
+
+    int[] left;
+    int[] right;
+    private int[] sizes;
+    private int[] priorities;
+    int root = NIL;
+    private int allocated = 1; // slot 0 is the NIL sentinel
+    private int freeList = NIL;
+    private int seed = 0x2545F491;
+
+    OrderStatisticTreap(int expectedSize) {
+        int capacity = Math.max(expectedSize + 1, 16);
+        left = new int[capacity];
+        right = new int[capacity];
+        sizes = new int[capacity];
+        priorities = new int[capacity];
+    }
+
+    // Grows the subclass's key columns to capacity nodes
+    abstract void growKeys(int capacity);
+
+    // Nodes the key columns must hold
+    final int capacity() {
+        return left.length;
+    }
+
+    final int size() {
+        return sizes[root];
+    }
+
+    // Takes a free node for a new key; the caller stores the key in it, then inserts it
+    final int newNode() {
+        int node;
+        if (freeList != NIL) {
+            node = freeList;
+            freeList = left[node];
+        } else {
+            if (allocated == left.length) {
+                grow();
+            }
+            node = allocated++;
+        }
+        left[node] = NIL;
+        right[node] = NIL;
+        sizes[node] = 1;
+        priorities[node] = nextPriority();
+        return node;
+    }
+
+    // Links node, whose key key probes for, into the tree
+    final void insert(int node, Probe key) {
+        root = insert(root, node, key);
+    }
+
+    // Removes the node equal to key; false when there is none
+    final boolean delete(Probe key) {
+        int before = sizes[root];
+        root = delete(root, key);
+        return sizes[root] < before;
+    }
+
+    // Number of keys before key
+    final int countBefore(Probe key) {
+        int count = 0;
+        int t = root;
+        while (t != NIL) {
+            if (key.compareTo(t) <= 0) {
+                t = left[t];
+            } else {
+                count += sizes[left[t]] + 1;
+                t = right[t];
+            }
+        }
+        return count;
+    }
+
+    // Position of the node equal to key in key order, or -1 when there is none
+    final int rankOf(Probe key) {
+        int count = 0;
+        int t = root;
+        while (t != NIL) {
+            int c = key.compareTo(t);
+            if (c == 0) {
+                return count + sizes[left[t]];
+            }
+            if (c < 0) {
+                t = left[t];
+            } else {
+                count += sizes[left[t]] + 1;
+                t = right[t];
+            }
+        }
+        return -1;
+    }
+
+    final boolean contains(Probe key) {
+        int t = root;
+        while (t != NIL) {
+            int c = key.compareTo(t);
+            if (c == 0) {
+                return true;
+            }
+            t = c < 0 ? left[t] : right[t];
+        }
+        return false;
+    }
+
+    // Node at position index of key order (0 = first)
+    final int select(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        int t = root;
+        while (true) {
+            int leftSize = sizes[left[t]];
+            if (index < leftSize) {
+                t = left[t];
+            } else if (index == leftSize) {
+                return t;
+            } else {
+                index -= leftSize + 1;
+                t = right[t];
+            }
+        }
+    }
+
+    // Builds the tree over nodes 1 to count, whose keys the caller has stored
+    // in key order, bottom-up rather than by count separate inserts
+    final void buildSorted(int count) {
+        allocated = count + 1;
+        freeList = NIL;
+        root = balance(1, count + 1);
+        assignPriorities(count);
+    }
+
+    final void clear() {
+        root = NIL;
+        allocated = 1;
+        freeList = NIL;
+    }
+
+    // Perfectly balanced subtree over nodes [from, to), which are in key order
+    private int balance(int from, int to) {
+        if (from >= to) {
+            return NIL;
+        }
+        int mid = (from + to) >>> 1;
+        left[mid] = balance(from, mid);
+        right[mid] = balance(mid + 1, to);
+        resize(mid);
+        return mid;
+    }
+
+    // Hands out random priorities in descending order level by level, so the
+    // balanced tree is also a valid heap and later inserts rotate as usual
+    private void assignPriorities(int count) {
+        int[] drawn = new int[count];
+        for (int i = 0; i < count; i++) {
+            drawn[i] = nextPriority();
+        }
+        Arrays.sort(drawn);
+        int[] queue = new int[count];
+        int head = 0;
+        int tail = 0;
+        if (root != NIL) {
+            queue[tail++] = root;
+        }
+        while (head < tail) {
+            int t = queue[head++];
+            priorities[t] = drawn[count - head];
+            if (left[t] != NIL) {
+                queue[tail++] = left[t];
+            }
+            if (right[t] != NIL) {
+                queue[tail++] = right[t];
+            }
+        }
+    }
+
+    private int insert(int t, int node, Probe key) {
+        if (t == NIL) {
+            return node;
+        }
+        if (key.compareTo(t) < 0) {
+            left[t] = insert(left[t], node, key);
+            if (priorities[left[t]] > priorities[t]) {
+                t = rotateRight(t);
+            }
+        } else {
+            right[t] = insert(right[t], node, key);
+            if (priorities[right[t]] > priorities[t]) {
+                t = rotateLeft(t);
+            }
+        }
+        resize(t);
+        return t;
+    }
+
+    private int delete(int t, Probe key) {
+        if (t == NIL) {
+            return NIL;
+        }
+        int c = key.compareTo(t);
+        if (c == 0) {
+            int merged = merge(left[t], right[t]);
+            release(t);
+            return merged;
+        }
+        if (c < 0) {
+            left[t] = delete(left[t], key);
+        } else {
+            right[t] = delete(right[t], key);
+        }
+        resize(t);
+        return t;
+    }
+
+    private int merge(int a, int b) {
+        if (a == NIL) {
+            return b;
+        }
+        if (b == NIL) {
+            return a;
+        }
+        if (priorities[a] > priorities[b]) {
+            right[a] = merge(right[a], b);
+            resize(a);
+            return a;
+        }
+        left[b] = merge(a, left[b]);
+        resize(b);
+        return b;
+    }
+
+    private int rotateRight(int t) {
+        int l = left[t];
+        left[t] = right[l];
+        right[l] = t;
+        resize(t);
+        resize(l);
+        return l;
+    }
+
+    private int rotateLeft(int t) {
+        int r = right[t];
+        right[t] = left[r];
+        left[r] = t;
+        resize(t);
+        resize(r);
+        return r;
+    }
+
+    private void resize(int t) {
+        sizes[t] = sizes[left[t]] + sizes[right[t]] + 1;
+    }
+
+    private void release(int node) {
+        left[node] = freeList;
+        freeList = node;
+    }
+
+    private void grow() {
+        int capacity = left.length + (left.length >> 1);
+        left = Arrays.copyOf(left, capacity);
+        right = Arrays.copyOf(right, capacity);
+        sizes = Arrays.copyOf(sizes, capacity);
+        priorities = Arrays.copyOf(priorities, capacity);
+        growKeys(capacity);
+    }
+
+    // xorshift32; priorities only need to look random
+    private int nextPriority() {
+        int x = seed;
+        x ^= x << 13;
+        x ^= x >>> 17;
+        x ^= x << 5;
+        seed = x;
+        return x;
+    }
+}
@@ -0,0 +1,181 @@
+package com.studentmanager;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+// Writes changes made to a shared StudentRepository back to the data file,
+// the way the GUI persists its own store. Any thread may report a change;
+// the reports are funnelled onto one owner thread that drives a
+// WriteBehindSaver, so saves are batched and written off the caller's thread.
+//
+// Changes are reported by roll number only. In journal mode each flush writes
+// the record's state at flush time (or a delete when it is gone); journal
+// entries are absolute, so racing edits to one roll cannot be written out of
+// order. In sharded mode a flush rewrites the shards of the changed rolls,
+// otherwise the whole data file, from a repository snapshot.
+//
+// With -Dstudentmanager.groupCommitMs=N a caller reporting a change waits
+// until it is saved. Changes reported within N ms of each other, or while the
+// previous save runs, are saved together, so a burst of edits costs one save
+// and one fsync rather than one each. With 0 a save starts at once and only
+// changes that arrive while it runs are grouped into the next.
+class RepositoryPersistence {
+    static final String GROUP_COMMIT_PROPERTY = "studentmanager.groupCommitMs";
+
+    private final StudentRepository repository;
+    private final SnapshotFormat dataFormat;
+    private final File dataFile;
+    private final StudentJournal journal; // null unless in journal mode
+    private final ShardedStorage shards; // null unless in sharded mode
+    private final long groupCommitMillis = Long.getLong(GROUP_COMMIT_PROPERTY, -1); // negative: callers do not wait
+    private final ExecutorService owner = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "repository-persistence-owner");
+        t.setDaemon(true);
+        return t;
+    });
+    private final WriteBehindSaver saver;
+    // Rolls changed since the last capture; owner thread only
+    private final RollIndex changedRolls = new RollIndex();
+    private int[] changedOrder = new int[64];
+
+    RepositoryPersistence(StudentRepository repository, SnapshotFormat dataFormat, File dataFile,
+            StudentJournal journal, ShardedStorage shards) {
+        this.repository = repository;
+        this.dataFormat = dataFormat;
+        this.dataFile = dataFile;
+        this.journal = journal;
+        this.shards = shards;
+        this.saver = new WriteBehindSaver(this::capturePendingWrite, owner,
+            new WriteBehindSaver.Listener() {
+                public void pendingChanged(boolean pending) {
+                }
+
+                public void writeFailed(IOException e) {
+                    StudentLog.error("Error saving data: " + e.getMessage());
+                }
+            },
+            WriteBehindSaver.DEFAULT_INTERVAL_MILLIS, WriteBehindSaver.DEFAULT_THRESHOLD,
+            groupCommitMillis >= 0 ? groupCommitMillis : WriteBehindSaver.DEFAULT_INTERVAL_MILLIS);
+    }
+
+    // Records that the student with this roll was added, updated or deleted.
+    // With group commit on, returns once the change is saved.
+    void changed(int rollNumber) throws IOException {
+        if (groupCommitMillis < 0) {
+            owner.execute(() -> {
+                record(rollNumber);
+                saver.markDirty();
+            });
+            return;
+        }
+        await(CompletableFuture.supplyAsync(() -> {
+            record(rollNumber);
+            return saver.markDirtyAwaited();
+        }, owner).thenCompose(written -> written));
+    }
+
+    // Writes everything pending and stops the owner thread
+    void close() throws IOException {
+        try {
+            await(owner.submit(() -> {
+                saver.close();
+                return null;
+            }));
+        } finally {
+            owner.shutdown();
+        }
+    }
+
+    // Owner thread
+    private void record(int rollNumber) {
+        if (shards != null) {
+            shards.markDirty(rollNumber);
+        }
+        if (journal != null && changedRolls.put(rollNumber, changedRolls.size()) == RollIndex.ABSENT) {
+            int n = changedRolls.size() - 1;
+            if (n == changedOrder.length) {
+                changedOrder = Arrays.copyOf(changedOrder, n * 2);
+            }
+            changedOrder[n] = rollNumber;
+        }
+    }
+
+    // Puts back the rolls of a failed journal write for the next one; runs
+    // on the owner thread ahead of the saver hearing of the failure
+    private void restore(int[] rolls) {
+        try {
+            owner.execute(() -> {
+                for (int roll : rolls) {
+                    record(roll);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Closed; there is no next write
+        }
+    }
+
+    private static void await(Future<?> save) throws IOException {
+        try {
+            save.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while saving", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Save failed", cause);
+        }
+    }
+
+    // Runs on the owner thread when the saver flushes
+    private WriteBehindSaver.PendingWrite capturePendingWrite() {
+        if (shards != null) {
+            final int[] dirty = shards.takeDirtyShards();
+            return () -> {
+                try {
+                    shards.write(repository.snapshot(), dirty);
+                } catch (IOException | RuntimeException e) {
+                    shards.markShardsDirty(dirty);
+                    throw e;
+                }
+            };
+        }
+        if (journal == null) {
+            return () -> {
+                StudentStore snapshot = repository.snapshot();
+                dataFormat.write(snapshot, dataFile);
+                StudentLog.info("Saved " + snapshot.size() + " students to file.");
+            };
+        }
+        final int[] rolls = Arrays.copyOf(changedOrder, changedRolls.size());
+        changedRolls.clear();
+        return () -> {
+            try {
+                for (int roll : rolls) {
+                    Student student = repository.findByRoll(roll);
+                    if (student == null) {
+                        journal.recordDelete(roll);
+                    } else {
+                        journal.recordUpdate(student);
+                    }
+                }
+                journal.flush();
+            } catch (IOException | RuntimeException e) {
+                restore(rolls);
+                throw e;
+            }
+            if (journal.needsCompaction()) {
+                journal.compactIfNeeded(repository.snapshot());
+            }
+        };
+    }
+}
@@ -0,0 +1,192 @@
+package com.studentmanager;
+
+// Open-addressing hash map from roll number to record position.
+// Keys and values live in int columns (no Integer boxing; on the heap or
+// memory-mapped, like the store that owns the index) and removal uses
+// backward-shift deletion, so there are no tombstones and lookups stay
+// O(1) however many deletes have happened.
+class RollIndex {
+    static final int ABSENT = -1;
+
+    private static final int MIN_CAPACITY = 16;
+
+    private final Columns columns;
+    private Columns.Ints keys;
+    private Columns.Ints values; // ABSENT marks a free slot; positions are always >= 0
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    RollIndex() {
+        this(Columns.HEAP, MIN_CAPACITY);
+    }
+
+    RollIndex(int expectedSize) {
+        this(Columns.HEAP, expectedSize);
+    }
+
+    RollIndex(Columns columns) {
+        this(columns, MIN_CAPACITY);
+    }
+
+    RollIndex(Columns columns, int expectedSize) {
+        this.columns = columns;
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    private RollIndex(RollIndex source) {
+        this.columns = source.columns;
+        this.keys = source.keys.snapshot();
+        this.values = source.values.snapshot();
+        this.mask = source.mask;
+        this.size = source.size;
+        this.resizeAt = source.resizeAt;
+    }
+
+    // Copy that later changes to either index do not affect; O(1) on the heap
+    RollIndex snapshot() {
+        return new RollIndex(this);
+    }
+
+    int size() {
+        return size;
+    }
+
+    // Returns the position stored for roll, or ABSENT
+    int get(int roll) {
+        int slot = hash(roll) & mask;
+        while (values.get(slot) != ABSENT) {
+            if (keys.get(slot) == roll) {
+                return values.get(slot);
+            }
+            slot = (slot + 1) & mask;
+        }
+        return ABSENT;
+    }
+
+    boolean containsKey(int roll) {
+        return get(roll) != ABSENT;
+    }
+
+    // Associates roll with position and returns the previous position, or ABSENT
+    int put(int roll, int position) {
+        if (position < 0) {
+            throw new IllegalArgumentException("Position must be non-negative: " + position);
+        }
+        int slot = hash(roll) & mask;
+        while (values.get(slot) != ABSENT) {
+            if (keys.get(slot) == roll) {
+                int previous = values.get(slot);
+                values.set(slot, position);
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys.set(slot, roll);
+        values.set(slot, position);
+        if (++size >= resizeAt) {
+            rehash(values.length() << 1);
+        }
+        return ABSENT;
+    }
+
+    // Removes roll and returns the position it mapped to, or ABSENT
+    int remove(int roll) {
+        int slot = hash(roll) & mask;
+        while (values.get(slot) != ABSENT) {
+            if (keys.get(slot) == roll) {
+                int previous = values.get(slot);
+                shiftBack(slot);
+                size--;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return ABSENT;
+    }
+
+    void clear() {
+        values.fill(ABSENT);
+        size = 0;
+    }
+
+    // Makes sure expectedSize entries fit without a rehash
+    void ensureCapacity(int expectedSize) {
+        int capacity = tableSizeFor(expectedSize);
+        if (capacity > values.length()) {
+            rehash(capacity);
+        }
+    }
+
+    // Closes the gap at slot by pulling later entries of the same probe run back
+    private void shiftBack(int gap) {
+        int slot = gap;
+        while (true) {
+            slot = (slot + 1) & mask;
+            if (values.get(slot) == ABSENT) {
+                break;
+            }
+            int home = hash(keys.get(slot)) & mask;
+            // Entry may move only if its home slot is not cyclically inside (gap, slot]
+            boolean movable = gap <= slot
+                ? (home <= gap || home > slot)
+                : (home <= gap && home > slot);
+            if (movable) {
+                keys.set(gap, keys.get(slot));
+                values.set(gap, values.get(slot));
+                gap = slot;
+            }
+        }
+        values.set(gap, ABSENT);
+    }
+
+    private void rehash(int capacity) {
+        Columns.Ints oldKeys = keys;
+        Columns.Ints oldValues = values;
+        allocate(capacity);
+        for (int i = 0, n = oldValues.length(); i < n; i++) {
+            int position = oldValues.get(i);
+            if (position != ABSENT) {
+                int key = oldKeys.get(i);
+                int slot = hash(key) & mask;
+                while (values.get(slot) != ABSENT) {
+                    slot = (slot + 1) & mask;
+                }
+                keys.set(slot, key);
+                values.set(slot, position);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = columns.ints(capacity);
+        values = columns.ints(capacity);
+        values.fill(ABSENT);
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * 0.6f);
+    }
+
+    // Power-of-two table large enough to hold expectedSize at the 0.6 load factor
+    private static int tableSizeFor(int expectedSize) {
+        long needed = (long) Math.ceil(Math.max(expectedSize, 1) / 0.6) + 1;
+        int capacity = MIN_CAPACITY;
+        while (capacity < needed) {
+            if (capacity >= (1 << 30)) {
+                throw new IllegalStateException("Roll index is full");
+            }
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    // Murmur3 finalizer so sequential roll numbers spread across the table
+    static int hash(int roll) {
+        int h = roll;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
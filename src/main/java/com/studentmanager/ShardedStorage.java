@@ -0,0 +1,323 @@
+package com.studentmanager;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Data kept as one file per range of roll numbers instead of one data file:
+// shard k of a directory holds rolls [k * rollsPerShard, (k + 1) * rollsPerShard)
+// in shard-<k>.txt (or .bin, in the snapshot format). Every shard has a dirty
+// flag, set by an edit to any roll in its range, and a save rewrites only the
+// dirty shards, each from the same store snapshot and each replaced
+// atomically (see AtomicFiles). Loads parse all shards in parallel and
+// append them in roll-range order.
+//
+// The range size is fixed for a directory by its shards.properties, written
+// with the first save; -Dstudentmanager.shardSize only picks it for a new one.
+class ShardedStorage {
+    static final String SHARD_SIZE_PROPERTY = "studentmanager.shardSize";
+    static final int DEFAULT_ROLLS_PER_SHARD = 100_000;
+
+    private static final String MANIFEST = "shards.properties";
+    private static final String PREFIX = "shard-";
+    private static final int MAX_REPORTED_REJECTS = 20;
+
+    private final File directory;
+    private final SnapshotFormat format;
+    private final String extension;
+    private final int rollsPerShard;
+    private final FsyncPolicy fsync = FsyncPolicy.configured();
+    // Shards changed since the last save was captured
+    private final Set<Integer> dirtyShards = new HashSet<>();
+
+    ShardedStorage(File directory, SnapshotFormat format) throws IOException {
+        this.directory = directory;
+        this.format = format;
+        String name = format.defaultFileName();
+        this.extension = name.substring(name.lastIndexOf('.'));
+        this.rollsPerShard = readRollsPerShard(new File(directory, MANIFEST));
+    }
+
+    // True when the persistence property selects sharded storage
+    static boolean isConfigured() {
+        return "sharded".equalsIgnoreCase(System.getProperty(StudentJournal.PERSISTENCE_PROPERTY));
+    }
+
+    // Shard directory used for a data file: students.txt keeps students.txt.shards
+    static File directoryFor(File dataFile) {
+        return new File(dataFile.getPath() + ".shards");
+    }
+
+    File directory() {
+        return directory;
+    }
+
+    // False until the first save creates the directory
+    boolean exists() {
+        return new File(directory, MANIFEST).isFile();
+    }
+
+    int shardOf(int rollNumber) {
+        return Math.floorDiv(rollNumber, rollsPerShard);
+    }
+
+    synchronized void markDirty(int rollNumber) {
+        dirtyShards.add(shardOf(rollNumber));
+    }
+
+    synchronized void markShardsDirty(int... shards) {
+        for (int shard : shards) {
+            dirtyShards.add(shard);
+        }
+    }
+
+    // Marks the shard of every record, so the next save writes them all
+    synchronized void markAllDirty(StudentStore store) {
+        for (int i = 0; i < store.size(); i++) {
+            dirtyShards.add(shardOf(store.rollAt(i)));
+        }
+    }
+
+    synchronized boolean hasDirtyShards() {
+        return !dirtyShards.isEmpty();
+    }
+
+    // Clears the dirty flags and returns the shards they were set for, in order
+    synchronized int[] takeDirtyShards() {
+        int[] shards = new int[dirtyShards.size()];
+        int n = 0;
+        for (int shard : dirtyShards) {
+            shards[n++] = shard;
+        }
+        dirtyShards.clear();
+        Arrays.sort(shards);
+        return shards;
+    }
+
+    // Adds every record of every shard to store, parsing the shards in parallel
+    FastStudentLoader.LoadReport load(StudentStore store) throws IOException {
+        long start = System.nanoTime();
+        final int[] shards = listShards();
+        List<Callable<StudentStore>> tasks = new ArrayList<>(shards.length);
+        final FastStudentLoader.LoadReport[] reports = new FastStudentLoader.LoadReport[shards.length];
+        for (int i = 0; i < shards.length; i++) {
+            final int n = i;
+            tasks.add(() -> {
+                StudentStore shard = new StudentStore();
+                reports[n] = format.decode(shardFile(shards[n]), shard);
+                return shard;
+            });
+        }
+        List<StudentStore> loaded = runAll(tasks);
+
+        int added = 0;
+        int rejected = 0;
+        long bytes = 0;
+        List<String> samples = new ArrayList<>();
+        int total = 0;
+        for (StudentStore shard : loaded) {
+            total += shard.size();
+        }
+        store.ensureCapacity(store.size() + total);
+        for (int i = 0; i < shards.length; i++) {
+            StudentStore shard = loaded.get(i);
+            FastStudentLoader.LoadReport report = reports[i];
+            for (String sample : report.rejectedSamples) {
+                if (samples.size() < MAX_REPORTED_REJECTS) {
+                    samples.add(shardFile(shards[i]).getName() + " " + sample);
+                }
+            }
+            // A record filed under the wrong range is rewritten where it belongs on the next save
+            for (int p = 0; p < shard.size(); p++) {
+                int roll = shard.rollAt(p);
+                if (shardOf(roll) != shards[i]) {
+                    markShardsDirty(shardOf(roll), shards[i]);
+                }
+            }
+            int count = store.addFrom(shard, null, shard.size());
+            added += count;
+            StudentLog.rejected(shard.size() - count); // already in another shard
+            rejected += report.rejected + shard.size() - count;
+            bytes += report.bytes;
+        }
+        FastStudentLoader.LoadReport report =
+            new FastStudentLoader.LoadReport(added, rejected, bytes, System.nanoTime() - start, samples);
+        StudentMetrics metrics = StudentMetrics.get();
+        metrics.record(StudentMetrics.Operation.LOAD, start);
+        metrics.addBytesRead(report.bytes);
+        metrics.addRecordsLoaded(report.loaded);
+        return report;
+    }
+
+    // Rewrites the given shards from records, in parallel. A shard left without
+    // records loses its file. On failure the shards are marked dirty again.
+    void write(StudentStore records, int[] shards) throws IOException {
+        if (shards.length == 0) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            writeShards(records, shards);
+        } catch (IOException | RuntimeException e) {
+            markShardsDirty(shards);
+            throw e;
+        }
+        StudentMetrics.get().record(StudentMetrics.Operation.SAVE, start);
+    }
+
+    private void writeShards(StudentStore records, int[] shards) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        File manifest = new File(directory, MANIFEST);
+        if (!manifest.isFile()) {
+            writeManifest(manifest);
+        }
+
+        // One pass over the records picks out the positions of each dirty shard
+        int[] counts = new int[shards.length];
+        int[][] positions = new int[shards.length][];
+        for (int i = 0; i < shards.length; i++) {
+            positions[i] = new int[16];
+        }
+        for (int p = 0, n = records.size(); p < n; p++) {
+            int i = Arrays.binarySearch(shards, shardOf(records.rollAt(p)));
+            if (i >= 0) {
+                if (counts[i] == positions[i].length) {
+                    positions[i] = Arrays.copyOf(positions[i], counts[i] * 2);
+                }
+                positions[i][counts[i]++] = p;
+            }
+        }
+
+        List<Callable<StudentStore>> tasks = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            final File file = shardFile(shards[i]);
+            final int[] shardPositions = positions[i];
+            final int count = counts[i];
+            tasks.add(() -> {
+                if (count == 0) {
+                    Files.deleteIfExists(file.toPath());
+                    fsync.directoryChanged(directory);
+                    return null;
+                }
+                StudentStore shard = new StudentStore();
+                shard.addFrom(records, shardPositions, count);
+                format.replace(shard, file, fsync);
+                StudentMetrics.get().addBytesWritten(file.length());
+                return shard;
+            });
+        }
+        runAll(tasks);
+    }
+
+    private File shardFile(int shard) {
+        return new File(directory, PREFIX + shard + extension);
+    }
+
+    // Shard numbers with a file in the directory, lowest range first
+    private int[] listShards() {
+        String[] names = directory.list();
+        if (names == null) {
+            return new int[0];
+        }
+        int[] shards = new int[names.length];
+        int n = 0;
+        for (String name : names) {
+            if (name.startsWith(PREFIX) && name.endsWith(extension)) {
+                try {
+                    shards[n] = Integer.parseInt(name.substring(PREFIX.length(), name.length() - extension.length()));
+                    n++;
+                } catch (NumberFormatException e) {
+                    // Not one of ours
+                }
+            }
+        }
+        shards = Arrays.copyOf(shards, n);
+        Arrays.sort(shards);
+        return shards;
+    }
+
+    private static <T> List<T> runAll(List<Callable<T>> tasks) throws IOException {
+        List<T> results = new ArrayList<>(tasks.size());
+        if (tasks.size() <= 1) {
+            for (Callable<T> task : tasks) {
+                try {
+                    results.add(task.call());
+                } catch (IOException | RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new IOException(e);
+                }
+            }
+            return results;
+        }
+        int threads = Math.min(Runtime.getRuntime().availableProcessors(), tasks.size());
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for (Future<T> future : pool.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Shard failed: " + cause, cause);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static int readRollsPerShard(File manifest) throws IOException {
+        if (!manifest.isFile()) {
+            int configured = Integer.getInteger(SHARD_SIZE_PROPERTY, DEFAULT_ROLLS_PER_SHARD);
+            if (configured <= 0) {
+                throw new IllegalArgumentException(SHARD_SIZE_PROPERTY + " must be positive: " + configured);
+            }
+            return configured;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = new FileInputStream(manifest)) {
+            properties.load(in);
+        }
+        int rollsPerShard;
+        try {
+            rollsPerShard = Integer.parseInt(properties.getProperty("rollsPerShard", "").trim());
+        } catch (NumberFormatException e) {
+            throw new IOException(manifest + " has no valid rollsPerShard");
+        }
+        // shardOf divides by it, so zero or a negative size would fail every lookup
+        if (rollsPerShard <= 0) {
+            throw new IOException(manifest + " has a rollsPerShard that is not positive: " + rollsPerShard);
+        }
+        return rollsPerShard;
+    }
+
+    private void writeManifest(File manifest) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("rollsPerShard", String.valueOf(rollsPerShard));
+        try (OutputStream out = new FileOutputStream(manifest)) {
+            properties.store(out, "Student shards: roll numbers per shard file; do not change");
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.studentmanager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Locale;
+
+// On-disk encodings for a full snapshot of the store. CSV is the original
+// students.txt text format; BINARY is the column layout of BinarySnapshot;
+// COMPACT is the delta, fixed-point and dictionary coding of CompactSnapshot.
+enum SnapshotFormat {
+    CSV("students.txt") {
+        @Override
+        FastStudentLoader.LoadReport decode(File file, StudentStore store) throws IOException {
+            return FastStudentLoader.load(file, store);
+        }
+
+        @Override
+        void encode(StudentStore store, File file) throws IOException {
+            StudentCsvWriter.write(store, file, FsyncPolicy.configured());
+        }
+    },
+
+    BINARY("students.bin") {
+        @Override
+        FastStudentLoader.LoadReport decode(File file, StudentStore store) throws IOException {
+            return BinarySnapshot.load(file, store);
+        }
+
+        @Override
+        void encode(StudentStore store, File file) throws IOException {
+            BinarySnapshot.write(store, file);
+        }
+    },
+
+    COMPACT("students.pack") {
+        @Override
+        FastStudentLoader.LoadReport decode(File file, StudentStore store) throws IOException {
+            return CompactSnapshot.load(file, store);
+        }
+
+        @Override
+        void encode(StudentStore store, File file) throws IOException {
+            CompactSnapshot.write(store, file);
+        }
+    };
+
+    // Set to "binary" or "compact" to keep the data in students.bin or
+    // students.pack instead of students.txt
+    static final String FORMAT_PROPERTY = "studentmanager.snapshotFormat";
+
+    private final String defaultFileName;
+
+    SnapshotFormat(String defaultFileName) {
+        this.defaultFileName = defaultFileName;
+    }
+
+    String defaultFileName() {
+        return defaultFileName;
+    }
+
+    // Adds every record in file to store, counted in StudentMetrics as a load
+    final FastStudentLoader.LoadReport read(File file, StudentStore store) throws IOException {
+        long start = System.nanoTime();
+        FastStudentLoader.LoadReport report = decode(file, store);
+        StudentMetrics metrics = StudentMetrics.get();
+        metrics.record(StudentMetrics.Operation.LOAD, start);
+        metrics.addBytesRead(report.bytes);
+        metrics.addRecordsLoaded(report.loaded);
+        return report;
+    }
+
+    // Writes every record of store to file, counted in StudentMetrics as a save.
+    // The records go to a temp file that replaces file only once complete (see
+    // AtomicFiles), so a crash mid-save leaves the previous file whole.
+    final void write(StudentStore store, File file) throws IOException {
+        long start = System.nanoTime();
+        replace(store, file, FsyncPolicy.configured());
+        StudentMetrics metrics = StudentMetrics.get();
+        metrics.record(StudentMetrics.Operation.SAVE, start);
+        metrics.addBytesWritten(file.length());
+    }
+
+    // Like write, without counting it in StudentMetrics
+    final void replace(StudentStore store, File file, FsyncPolicy fsync) throws IOException {
+        File temp = AtomicFiles.temporaryFor(file);
+        try {
+            encode(store, temp);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp.toPath());
+            throw e;
+        }
+        AtomicFiles.commit(temp, file, fsync);
+    }
+
+    abstract FastStudentLoader.LoadReport decode(File file, StudentStore store) throws IOException;
+
+    abstract void encode(StudentStore store, File file) throws IOException;
+
+    // Format of the application data file, from FORMAT_PROPERTY: CSV when
+    // unset or unknown, with a warning rather than a failed startup
+    static SnapshotFormat configured() {
+        String name = System.getProperty(FORMAT_PROPERTY);
+        try {
+            return fromName(name);
+        } catch (IllegalArgumentException e) {
+            StudentLog.warn("Unknown -D" + FORMAT_PROPERTY + " format '" + name + "'; using csv");
+            return CSV;
+        }
+    }
+
+    // Format named by a system property value such as "binary"; CSV when unset
+    static SnapshotFormat fromName(String name) {
+        return name == null ? CSV : valueOf(name.trim().toUpperCase(Locale.ROOT));
+    }
+
+    // Picks the format from a file name: .bin is binary, .pack compact, anything else CSV
+    static SnapshotFormat forFile(File file) {
+        String name = file.getName();
+        return name.endsWith(".bin") ? BINARY : name.endsWith(".pack") ? COMPACT : CSV;
+    }
+}
@@ -0,0 +1,87 @@
+package com.studentmanager;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+// Command-line helper for snapshot files:
+//   convert <in> <out>          re-encode, format picked by extension (.bin = binary, .pack = compact)
+//   compare [records] [dir]     time the startup load of each format on a synthetic cohort
+public final class SnapshotTool {
+    private static final String[] FIRST_NAMES = {
+        "Anshu", "Priya", "Rahul", "Aisha", "Vikram", "Meera", "Arjun", "Sara", "Kabir", "Nisha",
+        "John", "Maria", "Chen", "Fatima", "Lucas", "Emma", "Omar", "Yuki", "Ivan", "Zara"
+    };
+    private static final String[] LAST_NAMES = {
+        "Sharma", "Patel", "Khan", "Singh", "Das", "Smith", "Garcia", "Wang", "Kim", "Novak",
+        "O'Brien", "Rossi", "Ali", "Tanaka", "Silva", "Meyer", "Haddad", "Ng", "Costa", "Ivanova"
+    };
+    private static final int RUNS = 3;
+
+    private SnapshotTool() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length >= 3 && args[0].equals("convert")) {
+            convert(new File(args[1]), new File(args[2]));
+        } else if (args.length >= 1 && args[0].equals("compare")) {
+            int records = args.length > 1 ? Integer.parseInt(args[1]) : 5_000_000;
+            File dir = new File(args.length > 2 ? args[2] : System.getProperty("java.io.tmpdir"));
+            compare(records, dir);
+        } else {
+            System.out.println("Usage: SnapshotTool convert <in> <out> | compare [records] [dir]");
+        }
+    }
+
+    static void convert(File in, File out) throws IOException {
+        StudentStore store = new StudentStore();
+        FastStudentLoader.LoadReport report = SnapshotFormat.forFile(in).read(in, store);
+        System.out.println(report.summary());
+        SnapshotFormat.forFile(out).write(store, out);
+        System.out.println("Wrote " + store.size() + " students to " + out);
+    }
+
+    static void compare(int records, File dir) throws IOException {
+        StudentStore store = syntheticCohort(records, 42);
+        SnapshotFormat[] formats = SnapshotFormat.values();
+        File[] files = new File[formats.length];
+        StringBuilder sizes = new StringBuilder(String.format("%,d records:", records));
+        for (int i = 0; i < formats.length; i++) {
+            String name = formats[i].defaultFileName();
+            files[i] = new File(dir, "students-compare" + name.substring(name.lastIndexOf('.')));
+            formats[i].write(store, files[i]);
+            sizes.append(String.format(" %s %,d bytes", formats[i], files[i].length()));
+        }
+        store = null;
+        System.out.println(sizes);
+
+        for (int i = 0; i < formats.length; i++) {
+            SnapshotFormat format = formats[i];
+            long best = Long.MAX_VALUE;
+            for (int run = 0; run < RUNS; run++) {
+                StudentStore target = new StudentStore();
+                FastStudentLoader.LoadReport report = format.read(files[i], target);
+                best = Math.min(best, report.nanos);
+                System.out.println(format + " run " + (run + 1) + ": " + report.summary());
+            }
+            System.out.printf("%s best load: %.1f ms%n", format, best / 1e6);
+        }
+        for (File file : files) {
+            file.delete();
+        }
+    }
+
+    // Deterministic cohort with sequential rolls, repeated names and two-decimal marks
+    static StudentStore syntheticCohort(int records, long seed) {
+        Random random = new Random(seed);
+        StudentStore store = new StudentStore();
+        store.ensureCapacity(records);
+        for (int i = 0; i < records; i++) {
+            String name = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " "
+                + LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            double marks = random.nextInt(10001) / 100.0;
+            store.add(i + 1, name, marks);
+        }
+        return store;
+    }
+}
@@ -0,0 +1,60 @@
+package com.studentmanager;
+
+import java.util.Arrays;
+
+// Order-statistic tree over roll numbers in a caller-defined order, behind
+// the store's sorted table views; see OrderStatisticTreap. Sort keys are not
+// copied into the tree: the comparator looks them up, so a record must be
+// deleted before its key changes and inserted again afterwards. The order
+// must break ties so no two rolls are equal.
+class SortIndex extends OrderStatisticTreap {
+    interface Order {
+        int compare(int a, int b);
+    }
+
+    private final Order order;
+    private int[] rolls;
+
+    SortIndex(Order order, int expectedSize) {
+        super(expectedSize);
+        this.order = order;
+        rolls = new int[capacity()];
+    }
+
+    // Index over rolls that are already in order, built bottom-up
+    static SortIndex build(Order order, int[] sortedRolls, int count) {
+        SortIndex index = new SortIndex(order, count);
+        System.arraycopy(sortedRolls, 0, index.rolls, 1, count);
+        index.buildSorted(count);
+        return index;
+    }
+
+    void insert(int roll) {
+        int node = newNode();
+        rolls[node] = roll;
+        insert(node, key(roll));
+    }
+
+    void delete(int roll) {
+        delete(key(roll));
+    }
+
+    // Number of rolls before roll in the order; roll must be in the index
+    int rankOf(int roll) {
+        return rankOf(key(roll));
+    }
+
+    // Roll at position index of the order
+    int selectRoll(int index) {
+        return rolls[select(index)];
+    }
+
+    @Override
+    void growKeys(int capacity) {
+        rolls = Arrays.copyOf(rolls, capacity);
+    }
+
+    private Probe key(int roll) {
+        return node -> order.compare(roll, rolls[node]);
+    }
+}
@@ -0,0 +1,356 @@
+package com.studentmanager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+// Embedded JSON API over a StudentRepository, for other systems that need to
+// read or change records:
+//
+//   GET    /students/{roll}                     one student (404 when unknown)
+//   GET    /students?name=q[&prefix=true][&limit=n]  name search, ignoring case
+//   POST   /students                            add {"rollNumber","name","marks"} (409 on duplicate)
+//   PUT    /students/{roll}                     replace {"name","marks"}
+//   DELETE /students/{roll}                     remove
+//   GET    /stats                               count, average and top scorer
+//   GET    /metrics                             StudentMetrics dump as plain text
+//
+// Each request runs on its own virtual thread when the JVM has them (Java 21
+// and later); older JVMs fall back to a fixed pool. Changes are reported to a
+// listener so they can be persisted off the request thread.
+public class StudentApiServer {
+    public static final int DEFAULT_PORT = 8080;
+
+    private static final int BACKLOG = 1024;
+    private static final int DEFAULT_SEARCH_LIMIT = 20;
+    private static final int MAX_SEARCH_LIMIT = 1000;
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+
+    static {
+        // The JDK server writes headers and body separately; with Nagle on, a
+        // keep-alive client waits out its delayed ACK (~40 ms) on every response.
+        // Read once when the first server is created, so set it before that.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    // Told about every successful add, update or delete, on the request thread.
+    // It may block until the change is saved; a failure to save is reported
+    // to the client as a 500.
+    public interface ChangeListener {
+        void changed(int rollNumber) throws IOException;
+    }
+
+    private final StudentRepository repository;
+    private final ChangeListener listener;
+    private final HttpServer server;
+    private final ExecutorService requests;
+    private final StudentMetrics metrics = StudentMetrics.get();
+
+    public StudentApiServer(StudentRepository repository, int port, ChangeListener listener) throws IOException {
+        this.repository = repository;
+        this.listener = listener;
+        this.server = HttpServer.create(new InetSocketAddress(port), BACKLOG);
+        this.requests = requestExecutor();
+        server.createContext("/students", this::handleStudents);
+        server.createContext("/stats", this::handleStats);
+        server.createContext("/metrics", this::handleMetrics);
+        server.setExecutor(requests);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    // Stops accepting requests, giving running ones up to delaySeconds to finish
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        requests.shutdown();
+        try {
+            requests.awaitTermination(delaySeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    // Virtual thread per request where available; compiled for Java 8, so the
+    // Java 21 factory is looked up reflectively
+    static ExecutorService requestExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger count = new AtomicInteger();
+            return Executors.newFixedThreadPool(Math.max(8, Runtime.getRuntime().availableProcessors() * 4), r -> {
+                Thread t = new Thread(r, "api-request-" + count.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    static boolean usesVirtualThreads() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private void handleStudents(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        try {
+            String path = exchange.getRequestURI().getPath();
+            String method = exchange.getRequestMethod();
+            if (path.equals("/students") || path.equals("/students/")) {
+                if (method.equals("GET")) {
+                    search(exchange);
+                } else if (method.equals("POST")) {
+                    create(exchange);
+                } else {
+                    send(exchange, 405, StudentJson.error("Use GET or POST on /students"));
+                }
+                return;
+            }
+            int roll;
+            try {
+                roll = Integer.parseInt(path.substring("/students/".length()));
+            } catch (NumberFormatException e) {
+                send(exchange, 404, StudentJson.error("No such resource: " + path));
+                return;
+            }
+            switch (method) {
+                case "GET": read(exchange, roll); break;
+                case "PUT": update(exchange, roll); break;
+                case "DELETE": delete(exchange, roll); break;
+                default: send(exchange, 405, StudentJson.error("Use GET, PUT or DELETE on /students/{roll}"));
+            }
+        } catch (IllegalArgumentException e) {
+            send(exchange, 400, StudentJson.error(e.getMessage()));
+        } catch (RuntimeException e) {
+            internalError(exchange, e);
+        } finally {
+            exchange.close();
+            metrics.record(StudentMetrics.Operation.API_REQUEST, start);
+        }
+    }
+
+    private void handleStats(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        try {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                send(exchange, 405, StudentJson.error("Use GET on /stats"));
+                return;
+            }
+            int count = repository.size();
+            Student[] top = repository.topStudents(1);
+            StringBuilder sb = new StringBuilder("{\"count\":").append(count).append(",\"average\":");
+            StudentJson.appendNumber(sb, count == 0 ? Double.NaN : repository.sumMarks() / count);
+            sb.append(",\"top\":");
+            if (top.length == 0) {
+                sb.append("null");
+            } else {
+                StudentJson.appendStudent(sb, top[0]);
+            }
+            send(exchange, 200, sb.append('}').toString());
+        } catch (RuntimeException e) {
+            internalError(exchange, e);
+        } finally {
+            exchange.close();
+            metrics.record(StudentMetrics.Operation.API_REQUEST, start);
+        }
+    }
+
+    // The failure goes to the log, not to the client: exception text can hold
+    // file paths and record contents
+    private void internalError(HttpExchange exchange, RuntimeException e) throws IOException {
+        StudentLog.error("Request " + exchange.getRequestMethod() + " " + exchange.getRequestURI().getPath()
+            + " failed", e);
+        send(exchange, 500, StudentJson.error("Internal error"));
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        try {
+            byte[] body = metrics.dump().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void read(HttpExchange exchange, int roll) throws IOException {
+        long start = System.nanoTime();
+        Student student = repository.findByRoll(roll);
+        metrics.record(StudentMetrics.Operation.SEARCH, start);
+        if (student == null) {
+            send(exchange, 404, StudentJson.error("No student with roll number " + roll));
+        } else {
+            send(exchange, 200, StudentJson.student(student));
+        }
+    }
+
+    private void search(HttpExchange exchange) throws IOException {
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        String name = query.get("name");
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("Query parameter 'name' is required");
+        }
+        int limit = query.containsKey("limit") ? Integer.parseInt(query.get("limit")) : DEFAULT_SEARCH_LIMIT;
+        limit = Math.max(0, Math.min(limit, MAX_SEARCH_LIMIT));
+        boolean prefixOnly = Boolean.parseBoolean(query.get("prefix"));
+        long start = System.nanoTime();
+        Student[] found = repository.searchNames(name, prefixOnly, limit);
+        metrics.record(StudentMetrics.Operation.SEARCH, start);
+        send(exchange, 200, StudentJson.students(found));
+    }
+
+    private void create(HttpExchange exchange) throws IOException {
+        Map<String, String> body = StudentJson.parseObject(readBody(exchange));
+        int roll = Integer.parseInt(required(body, "rollNumber"));
+        Student student = new Student(roll, name(body), marks(body));
+        long start = System.nanoTime();
+        boolean added = repository.add(student);
+        metrics.record(StudentMetrics.Operation.ADD, start);
+        if (!added) {
+            send(exchange, 409, StudentJson.error("Student with roll number " + roll + " already exists"));
+            return;
+        }
+        if (saved(exchange, roll)) {
+            send(exchange, 201, StudentJson.student(student));
+        }
+    }
+
+    private void update(HttpExchange exchange, int roll) throws IOException {
+        Map<String, String> body = StudentJson.parseObject(readBody(exchange));
+        Student student = new Student(roll, name(body), marks(body));
+        long start = System.nanoTime();
+        boolean updated = repository.update(roll, student.getName(), student.getMarks());
+        metrics.record(StudentMetrics.Operation.UPDATE, start);
+        if (!updated) {
+            send(exchange, 404, StudentJson.error("No student with roll number " + roll));
+            return;
+        }
+        if (saved(exchange, roll)) {
+            send(exchange, 200, StudentJson.student(student));
+        }
+    }
+
+    private void delete(HttpExchange exchange, int roll) throws IOException {
+        long start = System.nanoTime();
+        Student removed = repository.remove(roll);
+        metrics.record(StudentMetrics.Operation.DELETE, start);
+        if (removed == null) {
+            send(exchange, 404, StudentJson.error("No student with roll number " + roll));
+            return;
+        }
+        if (saved(exchange, roll)) {
+            send(exchange, 204, null);
+        }
+    }
+
+    // Reports a change to the listener; false, with a 500 sent, when it could not be saved
+    private boolean saved(HttpExchange exchange, int roll) throws IOException {
+        try {
+            listener.changed(roll);
+            return true;
+        } catch (IOException e) {
+            send(exchange, 500, StudentJson.error("Change applied but not saved: " + e.getMessage()));
+            return false;
+        }
+    }
+
+    private static String required(Map<String, String> body, String field) {
+        String value = body.get(field);
+        if (value == null) {
+            throw new IllegalArgumentException("Field '" + field + "' is required");
+        }
+        return value;
+    }
+
+    private static String name(Map<String, String> body) {
+        String name = required(body, "name").trim();
+        if (name.isEmpty()) {
+            throw new IllegalArgumentException("Field 'name' must not be empty");
+        }
+        if (name.indexOf('\n') >= 0 || name.indexOf('\r') >= 0) {
+            // The data file holds one record per line
+            throw new IllegalArgumentException("Field 'name' must be a single line");
+        }
+        return name;
+    }
+
+    private static double marks(Map<String, String> body) {
+        double marks = Double.parseDouble(required(body, "marks"));
+        if (Double.isNaN(marks) || Double.isInfinite(marks)) {
+            throw new IllegalArgumentException("Field 'marks' must be a number");
+        }
+        return marks;
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        try (InputStream in = exchange.getRequestBody()) {
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                if (out.size() + n > MAX_BODY_BYTES) {
+                    throw new IllegalArgumentException("Request body too large");
+                }
+                out.write(buffer, 0, n);
+            }
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) throws UnsupportedEncodingException {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            query.put(URLDecoder.decode(key, "UTF-8"), URLDecoder.decode(value, "UTF-8"));
+        }
+        return query;
+    }
+
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        if (json == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.studentmanager;
+
+// Text encoding shared by the data file and the change journal:
+// roll,name,marks with the name quoted when it contains a comma or quote.
+final class StudentCsv {
+    private StudentCsv() {
+    }
+
+    static String format(Student student) {
+        return student.getRollNumber() + "," + quoteName(student.getName()) + "," + student.getMarks();
+    }
+
+    // Escape commas in names by wrapping in quotes if needed
+    static String quoteName(String name) {
+        if (name.contains(",") || name.contains("\"")) {
+            return "\"" + name.replace("\"", "\"\"") + "\"";
+        }
+        return name;
+    }
+
+    // Parses one roll,name,marks record starting at offset; throws IllegalArgumentException on bad input
+    static Student parse(String line, int offset) {
+        int firstComma = line.indexOf(',', offset);
+        if (firstComma < 0) {
+            throw new IllegalArgumentException("expected 3 parts");
+        }
+        int rollNumber = Integer.parseInt(line.substring(offset, firstComma).trim());
+
+        String name;
+        int nameEnd;
+        int nameStart = skipSpaces(line, firstComma + 1);
+        if (nameStart < line.length() && line.charAt(nameStart) == '"') {
+            StringBuilder sb = new StringBuilder();
+            int i = nameStart + 1;
+            while (true) {
+                if (i >= line.length()) {
+                    throw new IllegalArgumentException("unterminated quoted name");
+                }
+                char c = line.charAt(i);
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        sb.append('"');
+                        i += 2;
+                        continue;
+                    }
+                    i++;
+                    break;
+                }
+                sb.append(c);
+                i++;
+            }
+            nameEnd = line.indexOf(',', i);
+            name = sb.toString();
+        } else {
+            nameEnd = line.indexOf(',', firstComma + 1);
+            name = nameEnd < 0 ? "" : line.substring(firstComma + 1, nameEnd);
+        }
+        if (nameEnd < 0 || line.indexOf(',', nameEnd + 1) >= 0) {
+            throw new IllegalArgumentException("expected 3 parts");
+        }
+        name = name.trim();
+        if (name.isEmpty()) {
+            throw new IllegalArgumentException("empty name");
+        }
+        double marks = Double.parseDouble(line.substring(nameEnd + 1).trim());
+        return new Student(rollNumber, name, marks);
+    }
+
+    private static int skipSpaces(String line, int i) {
+        while (i < line.length() && line.charAt(i) == ' ') {
+            i++;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,153 @@
+package com.studentmanager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+// Writes the store as a CSV data file in the StudentCsv format without
+// building a String per record: rolls and marks are formatted digit by digit
+// and names copied as UTF-8 straight from the name column into one direct
+// buffer, which is drained through a FileChannel (and forced after each
+// drain under the BUFFER fsync policy). The only per-record allocations are
+// in the rare slow paths (a name that needs quoting, marks that are not a
+// plain two-decimal number).
+//
+// Marks print exactly as Double.toString, which the loader reads back.
+final class StudentCsvWriter {
+    private static final int BUFFER_BYTES = 1 << 20;
+    // roll, two commas, two quotes, longest Double.toString, line separator
+    private static final int FIXED_FIELD_BYTES = 64;
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+    // Marks below this print in plain decimal notation in Double.toString
+    private static final double PLAIN_LIMIT = 1e7;
+
+    private final FileChannel channel;
+    private final FsyncPolicy fsync;
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    private byte[] quoteScratch = new byte[64];
+
+    private StudentCsvWriter(FileChannel channel, FsyncPolicy fsync) {
+        this.channel = channel;
+        this.fsync = fsync;
+    }
+
+    static void write(StudentStore store, File file, FsyncPolicy fsync) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            StudentCsvWriter writer = new StudentCsvWriter(channel, fsync);
+            for (int i = 0, count = store.size(); i < count; i++) {
+                writer.writeRecord(store, i);
+            }
+            writer.drain();
+        }
+    }
+
+    private void writeRecord(StudentStore store, int position) throws IOException {
+        int nameLength = store.nameLengthAt(position);
+        room(FIXED_FIELD_BYTES + 2 * nameLength);
+        putLong(store.rollAt(position));
+        buffer.put((byte) ',');
+        putName(store, position, nameLength);
+        buffer.put((byte) ',');
+        putMarks(store.marksAt(position));
+        buffer.put(LINE_SEPARATOR);
+    }
+
+    // Copies the name bytes in place, then quotes them if they hold a comma or
+    // quote; both are ASCII, so they never occur inside a multi-byte character
+    private void putName(StudentStore store, int position, int length) {
+        int start = buffer.position();
+        store.copyNameBytes(position, buffer);
+        boolean quote = false;
+        for (int i = start; i < start + length; i++) {
+            byte b = buffer.get(i);
+            if (b == ',' || b == '"') {
+                quote = true;
+                break;
+            }
+        }
+        if (!quote) {
+            return;
+        }
+        if (quoteScratch.length < length) {
+            quoteScratch = new byte[Math.max(length, quoteScratch.length * 2)];
+        }
+        buffer.position(start);
+        buffer.get(quoteScratch, 0, length);
+        buffer.position(start);
+        buffer.put((byte) '"');
+        for (int i = 0; i < length; i++) {
+            byte b = quoteScratch[i];
+            if (b == '"') {
+                buffer.put((byte) '"');
+            }
+            buffer.put(b);
+        }
+        buffer.put((byte) '"');
+    }
+
+    // Marks with up to two decimals, the usual case, are printed from their
+    // hundredths; anything else falls back to Double.toString
+    private void putMarks(double marks) {
+        long hundredths = Math.round(marks * 100);
+        if (Math.abs(marks) < PLAIN_LIMIT
+                && Double.doubleToLongBits(hundredths / 100.0) == Double.doubleToLongBits(marks)) {
+            if (hundredths < 0) {
+                buffer.put((byte) '-');
+                hundredths = -hundredths;
+            }
+            putLong(hundredths / 100);
+            buffer.put((byte) '.');
+            int fraction = (int) (hundredths % 100);
+            buffer.put((byte) ('0' + fraction / 10));
+            if (fraction % 10 != 0) {
+                buffer.put((byte) ('0' + fraction % 10));
+            }
+            return;
+        }
+        String text = Double.toString(marks);
+        for (int i = 0; i < text.length(); i++) {
+            buffer.put((byte) text.charAt(i));
+        }
+    }
+
+    private void putLong(long value) {
+        if (value < 0) {
+            buffer.put((byte) '-');
+            value = -value; // rolls are ints, so this cannot overflow
+        }
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        int end = buffer.position() + digits;
+        for (int i = end - 1; i >= end - digits; i--) {
+            buffer.put(i, (byte) ('0' + value % 10));
+            value /= 10;
+        }
+        buffer.position(end);
+    }
+
+    // Drains the buffer when fewer than needed bytes are left, growing it for oversized names
+    private void room(int needed) throws IOException {
+        if (buffer.remaining() >= needed) {
+            return;
+        }
+        drain();
+        if (buffer.capacity() < needed) {
+            buffer = ByteBuffer.allocateDirect(needed);
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+        fsync.drained(channel);
+    }
+}
@@ -1,16 +1,14 @@
 package com.studentmanager;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.DefaultTableCellRenderer;
 import javax.swing.border.EmptyBorder;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
-import java.util.ArrayList;
 import java.io.*;
-import java.util.Scanner;
+import java.util.ArrayList;
 
 // Custom panel with gradient background
 class GradientPanel extends JPanel {
@@ -85,13 +83,82 @@ class RoundedPanel extends JPanel {
     }
 }
 
+// Bar chart of how many students fall in each grade band
+class GradeBandChart extends JComponent {
+    private static final long serialVersionUID = 1L;
+
+    private final int[] counts = new int[CohortStatistics.GRADE_BANDS.length];
+    private final Color barColor;
+
+    public GradeBandChart(Color barColor) {
+        this.barColor = barColor;
+        setPreferredSize(new Dimension(200, 64));
+    }
+
+    public void setCounts(CohortStatistics stats) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = stats.bandCount(i);
+        }
+        repaint();
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Graphics2D g2 = (Graphics2D) g.create();
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2.setFont(new Font("Segoe UI", Font.PLAIN, 11));
+        FontMetrics fm = g2.getFontMetrics();
+        Insets insets = getInsets();
+        int width = getWidth() - insets.left - insets.right;
+        int labelHeight = fm.getHeight();
+        int chartHeight = getHeight() - insets.top - insets.bottom - labelHeight;
+        int slot = width / counts.length;
+        int most = 1;
+        for (int count : counts) {
+            most = Math.max(most, count);
+        }
+        for (int i = 0; i < counts.length; i++) {
+            int x = insets.left + i * slot;
+            int barHeight = (int) Math.round((double) counts[i] / most * chartHeight);
+            g2.setColor(barColor);
+            g2.fillRoundRect(x + slot / 5, insets.top + chartHeight - barHeight, slot * 3 / 5, barHeight, 4, 4);
+            g2.setColor(new Color(100, 116, 139));
+            String label = CohortStatistics.GRADE_BANDS[i];
+            g2.drawString(label, x + (slot - fm.stringWidth(label)) / 2, insets.top + chartHeight + fm.getAscent());
+        }
+        g2.dispose();
+    }
+}
+
 public class StudentGUI extends JFrame {
-    private ArrayList<Student> students = new ArrayList<>();
-    private DefaultTableModel tableModel;
+    private final StudentStore store = StudentStore.configured();
+    private final DashboardAggregates aggregates = new DashboardAggregates(store);
+    private StudentTableModel tableModel;
     private JTable table;
     private JTextField rollField, nameField, marksField;
     private JLabel totalStudentsValueLabel, averageMarksValueLabel, topScoreValueLabel;
-    private static final String DATA_FILE = "students.txt";
+    private JLabel medianValueLabel, spreadValueLabel, passRateValueLabel;
+    private GradeBandChart gradeBandChart;
+    // Cohort statistics are computed off the EDT, at most once per delay however
+    // fast edits come; edits made while one runs trigger one more run
+    private static final int STATISTICS_DELAY_MILLIS = 250;
+    private final Timer statisticsTimer = new Timer(STATISTICS_DELAY_MILLIS, e -> computeCohortStatistics());
+    private boolean statisticsRunning, statisticsStale;
+    private final StudentMetrics metrics = StudentMetrics.get();
+    private final SnapshotFormat dataFormat = SnapshotFormat.configured();
+    private final File dataFile = new File(dataFormat.defaultFileName());
+    private StudentJournal journal; // non-null in journal persistence mode
+    private ShardedStorage shards; // non-null in sharded persistence mode
+    // Saves run on a background thread; these tune how often pending edits are flushed
+    private static final String FLUSH_INTERVAL_PROPERTY = "studentmanager.flushIntervalMs";
+    private static final String FLUSH_THRESHOLD_PROPERTY = "studentmanager.flushThreshold";
+    private static final String READY_STATUS = "Ready to manage students | Press F1 for keyboard shortcuts";
+    private WriteBehindSaver saver;
+    private DataFileWatcher watcher;
+    // Outside changes larger than this repaint the whole table instead of one row each
+    private static final int MAX_ROW_EVENTS = 1000;
+    private final java.util.List<JournalEntry> pendingJournalEntries = new ArrayList<>();
+    private JLabel statusLabel;
     
     // Modern color scheme
     private static final Color PRIMARY_COLOR = new Color(74, 144, 226);
@@ -115,8 +182,41 @@ public class StudentGUI extends JFrame {
         mainPanel.setLayout(new BorderLayout());
         setContentPane(mainPanel);
         
-        // Load data from file when application starts
+        StudentMetrics.registerMBean();
+        if (StudentJournal.isConfigured()) {
+            journal = new StudentJournal(dataFile);
+        } else if (ShardedStorage.isConfigured()) {
+            try {
+                shards = new ShardedStorage(ShardedStorage.directoryFor(dataFile), dataFormat);
+            } catch (IOException e) {
+                showMessage("Error opening shard directory, using " + dataFile + " instead: " + e.getMessage(), "Load Error");
+            }
+        }
+        saver = new WriteBehindSaver(this::captureOwnWrite, SwingUtilities::invokeLater,
+            new WriteBehindSaver.Listener() {
+                public void pendingChanged(boolean pending) {
+                    if (statusLabel != null) {
+                        statusLabel.setText(pending ? "Saving changes..." : READY_STATUS);
+                    }
+                }
+
+                public void writeFailed(IOException e) {
+                    showMessage("Error saving data to file: " + e.getMessage(), "Save Error");
+                }
+            },
+            Long.getLong(FLUSH_INTERVAL_PROPERTY, WriteBehindSaver.DEFAULT_INTERVAL_MILLIS),
+            Integer.getInteger(FLUSH_THRESHOLD_PROPERTY, WriteBehindSaver.DEFAULT_THRESHOLD));
+        
+        // Load data from file when application starts, then follow changes made to it elsewhere
         loadDataFromFile();
+        if (journal != null) {
+            watcher = DataFileWatcher.forJournal(journal, SwingUtilities::invokeLater, this::applyOutsideChanges);
+        } else if (shards == null) {
+            watcher = DataFileWatcher.forSnapshot(dataFile, dataFormat, SwingUtilities::invokeLater, this::applyOutsideChanges);
+        }
+        if (watcher != null) {
+            watcher.start();
+        }
         
         initializeComponents();
         setSize(1200, 800);
@@ -128,7 +228,16 @@ public class StudentGUI extends JFrame {
         addWindowListener(new java.awt.event.WindowAdapter() {
             @Override
             public void windowClosing(java.awt.event.WindowEvent windowEvent) {
-                saveDataToFile();
+                // Wait for every pending edit to reach the disk before exiting
+                try {
+                    saver.close();
+                } catch (IOException e) {
+                    showMessage("Error saving data to file: " + e.getMessage(), "Save Error");
+                }
+                closeWatcher();
+                if (journal != null) {
+                    closeJournal();
+                }
                 System.exit(0);
             }
         });
@@ -241,12 +350,28 @@ public class StudentGUI extends JFrame {
         cardsWrapper.add(createMetricCard("Average Marks", averageMarksValueLabel, "Class performance snapshot", new Color(14, 165, 233)));
         cardsWrapper.add(createMetricCard("Top Performer", topScoreValueLabel, "Highest score right now", ACCENT_COLOR));
 
+        JPanel statisticsWrapper = new JPanel();
+        statisticsWrapper.setOpaque(false);
+        statisticsWrapper.setLayout(new GridLayout(1, 4, 18, 0));
+
+        medianValueLabel = createStatisticValueLabel();
+        spreadValueLabel = createStatisticValueLabel();
+        passRateValueLabel = createStatisticValueLabel();
+        gradeBandChart = new GradeBandChart(new Color(139, 92, 246));
+
+        statisticsWrapper.add(createMetricCard("Median Marks", medianValueLabel, "Middle of the class, with quartiles", SUCCESS_COLOR));
+        statisticsWrapper.add(createMetricCard("Spread", spreadValueLabel, "Standard deviation of marks", new Color(245, 158, 11)));
+        statisticsWrapper.add(createMetricCard("Pass Rate", passRateValueLabel, "At or above the pass mark", new Color(20, 184, 166)));
+        statisticsWrapper.add(createMetricCard("Grade Bands", gradeBandChart, "Students per grade, A (90+) to F", new Color(139, 92, 246)));
+
         container.add(cardsWrapper, BorderLayout.CENTER);
+        container.add(statisticsWrapper, BorderLayout.SOUTH);
+        ((BorderLayout) container.getLayout()).setVgap(18);
 
         return container;
     }
 
-    private JPanel createMetricCard(String title, JLabel valueLabel, String helperText, Color accentColor) {
+    private JPanel createMetricCard(String title, JComponent valueComponent, String helperText, Color accentColor) {
         RoundedPanel card = new RoundedPanel(30, CARD_BACKGROUND);
         card.setShadowAlpha(0.24f);
         card.setShadowSize(20);
@@ -264,15 +389,17 @@ public class StudentGUI extends JFrame {
         titleRow.add(accentDot);
         titleRow.add(titleLabel);
 
-        valueLabel.setHorizontalAlignment(SwingConstants.LEFT);
-        valueLabel.setBorder(new EmptyBorder(12, 4, 8, 4));
+        if (valueComponent instanceof JLabel) {
+            ((JLabel) valueComponent).setHorizontalAlignment(SwingConstants.LEFT);
+        }
+        valueComponent.setBorder(new EmptyBorder(12, 4, 8, 4));
 
         JLabel helperLabel = new JLabel(helperText);
         helperLabel.setFont(new Font("Segoe UI", Font.PLAIN, 13));
         helperLabel.setForeground(MUTED_TEXT_COLOR);
 
         card.add(titleRow, BorderLayout.NORTH);
-        card.add(valueLabel, BorderLayout.CENTER);
+        card.add(valueComponent, BorderLayout.CENTER);
         card.add(helperLabel, BorderLayout.SOUTH);
 
         return card;
@@ -286,12 +413,20 @@ public class StudentGUI extends JFrame {
         return label;
     }
 
+    private JLabel createStatisticValueLabel() {
+        JLabel label = createMetricValueLabel();
+        label.setFont(new Font("Segoe UI", Font.BOLD, 26));
+        label.setText(statisticHtml("\u2014", ""));
+        return label;
+    }
+
     private void updateDashboardMetrics() {
         if (totalStudentsValueLabel == null || averageMarksValueLabel == null || topScoreValueLabel == null) {
             return;
         }
+        refreshCohortStatistics();
 
-        int total = students.size();
+        int total = aggregates.count();
         totalStudentsValueLabel.setText(String.valueOf(total));
 
         if (total == 0) {
@@ -300,19 +435,10 @@ public class StudentGUI extends JFrame {
             return;
         }
 
-        double sum = 0;
-        Student topStudent = null;
-        double topMarks = Double.NEGATIVE_INFINITY;
-
-        for (Student student : students) {
-            sum += student.getMarks();
-            if (student.getMarks() > topMarks) {
-                topMarks = student.getMarks();
-                topStudent = student;
-            }
-        }
+        double averageMarks = aggregates.average();
+        double topMarks = aggregates.topMarks();
+        Student topStudent = store.findByRoll(aggregates.topRoll());
 
-        double averageMarks = sum / total;
         averageMarksValueLabel.setText(String.format("%.2f%%", averageMarks));
 
         if (topStudent != null) {
@@ -327,6 +453,77 @@ public class StudentGUI extends JFrame {
         }
     }
 
+    // Schedules a refresh of the statistics cards; edits within the delay share it
+    private void refreshCohortStatistics() {
+        if (!statisticsTimer.isRunning()) {
+            statisticsTimer.setRepeats(false);
+            statisticsTimer.start();
+        }
+    }
+
+    // Starts computing the statistics cards for the store as it is now, in the
+    // fork/join pool; only one computation runs at a time. The EDT copies just
+    // the marks column and reads the quartiles from the marks index.
+    private void computeCohortStatistics() {
+        if (statisticsRunning) {
+            statisticsStale = true;
+            return;
+        }
+        statisticsRunning = true;
+        double[] marks = store.marksSnapshot();
+        double q1 = store.percentile(25);
+        double median = store.percentile(50);
+        double q3 = store.percentile(75);
+        double passMark = CohortStatistics.configuredPassMark();
+        java.util.concurrent.ForkJoinPool.commonPool().execute(() -> {
+            CohortStatistics stats = null;
+            try {
+                stats = CohortStatistics.compute(marks, q1, median, q3, passMark);
+            } catch (RuntimeException e) {
+                StudentLog.error("Computing cohort statistics failed", e);
+            } finally {
+                // Always hand back, or the cards would never refresh again
+                CohortStatistics computed = stats;
+                SwingUtilities.invokeLater(() -> statisticsFinished(computed));
+            }
+        });
+    }
+
+    // On the EDT once a computation ends; stats is null when it failed
+    private void statisticsFinished(CohortStatistics stats) {
+        statisticsRunning = false;
+        if (statisticsStale) {
+            statisticsStale = false;
+            computeCohortStatistics();
+        }
+        if (stats != null) {
+            showCohortStatistics(stats);
+        }
+    }
+
+    private void showCohortStatistics(CohortStatistics stats) {
+        gradeBandChart.setCounts(stats);
+        if (stats.count == 0) {
+            medianValueLabel.setText(statisticHtml("\u2014", ""));
+            spreadValueLabel.setText(statisticHtml("\u2014", ""));
+            passRateValueLabel.setText(statisticHtml("\u2014", ""));
+            return;
+        }
+        medianValueLabel.setText(statisticHtml(String.format("%.2f", stats.median),
+            String.format("Q1 %.2f, Q3 %.2f", stats.q1, stats.q3)));
+        spreadValueLabel.setText(statisticHtml(String.format("%.2f", stats.standardDeviation),
+            String.format("Range %.2f to %.2f", stats.min, stats.max)));
+        passRateValueLabel.setText(statisticHtml(String.format("%.1f%%", stats.passRate() * 100),
+            String.format("%,d of %,d at %s or above", stats.passed, stats.count,
+                new java.text.DecimalFormat("0.##").format(stats.passMark))));
+    }
+
+    private String statisticHtml(String value, String detail) {
+        return String.format(
+            "<html><div style='font-size:26px;font-weight:700;color:#1F2937;text-align:left;'>%s</div><div style='font-size:14px;color:#64748B;'>%s</div></html>",
+            value, escapeHtml(detail));
+    }
+
     private String escapeHtml(String input) {
         if (input == null) {
             return "";
@@ -464,13 +661,7 @@ public class StudentGUI extends JFrame {
     }
 
     private void createTable() {
-        String[] columns = {"Roll Number", "Student Name", "Marks"};
-        tableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tableModel = new StudentTableModel(store);
         table = new JTable(tableModel);
         table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         
@@ -494,6 +685,27 @@ public class StudentGUI extends JFrame {
         table.getTableHeader().setReorderingAllowed(false);
         table.getTableHeader().setOpaque(true);
         table.getTableHeader().setResizingAllowed(true); // Allow column resizing
+        // Click a header to sort by that column (the store keeps the sorted
+        // order); click it again to reverse
+        table.getTableHeader().addMouseListener(new java.awt.event.MouseAdapter() {
+            @Override
+            public void mouseClicked(java.awt.event.MouseEvent e) {
+                int column = table.getTableHeader().columnAtPoint(e.getPoint());
+                if (column < 0) {
+                    return;
+                }
+                setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+                try {
+                    tableModel.sortBy(table.convertColumnIndexToModel(column));
+                } finally {
+                    setCursor(Cursor.getDefaultCursor());
+                }
+                for (int i = 0; i < table.getColumnCount(); i++) {
+                    table.getColumnModel().getColumn(i).setHeaderValue(tableModel.getColumnName(table.convertColumnIndexToModel(i)));
+                }
+                table.getTableHeader().repaint();
+            }
+        });
         
         // Center align content
         DefaultTableCellRenderer centerRenderer = new DefaultTableCellRenderer();
@@ -579,7 +791,7 @@ public class StudentGUI extends JFrame {
         bottomPanel.setOpaque(false);
         
         // Add status bar with keyboard shortcuts hint
-        JLabel statusLabel = new JLabel("Ready to manage students | Press F1 for keyboard shortcuts", JLabel.CENTER);
+        statusLabel = new JLabel(READY_STATUS, JLabel.CENTER);
         statusLabel.setFont(new Font("Segoe UI", Font.ITALIC, 12));
         statusLabel.setForeground(new Color(100, 100, 100));
         statusLabel.setOpaque(false);
@@ -704,13 +916,33 @@ public class StudentGUI extends JFrame {
         inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_F5, 0), "refreshData");
         actionMap.put("refreshData", new AbstractAction() {
             public void actionPerformed(ActionEvent e) {
-                // Reload data from file
-                students.clear();
-                tableModel.setRowCount(0);
-                loadDataFromFile();
-                loadDataIntoTable();
+                // Pick up outside changes now, after pending edits have been written;
+                // the watcher reads only what changed, as it does on its own
+                try {
+                    saver.flushAndWait();
+                } catch (IOException ex) {
+                    showMessage("Error saving data to file: " + ex.getMessage(), "Save Error");
+                    return;
+                }
                 clearFields();
-                showMessage("Data refreshed from file!", "Refresh Complete");
+                if (watcher == null) {
+                    // Sharded data has no single file to watch; reload all of it
+                    store.clear();
+                    loadDataFromFile();
+                    loadDataIntoTable();
+                    showMessage("Data refreshed from file!", "Refresh Complete");
+                    return;
+                }
+                statusLabel.setText("Checking " + watcher.file().getName() + " for changes...");
+                watcher.rescan();
+            }
+        });
+        
+        // F12 - Dump operation metrics
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_F12, 0), "dumpMetrics");
+        actionMap.put("dumpMetrics", new AbstractAction() {
+            public void actionPerformed(ActionEvent e) {
+                showMetrics();
             }
         });
         
@@ -764,24 +996,36 @@ public class StudentGUI extends JFrame {
             "Escape - Clear all fields\n\n" +
             "GLOBAL SHORTCUTS:\n" +
             "Ctrl+N - New student (clear fields & focus roll)\n" +
-            "Ctrl+S - Search student\n" +
+            "Ctrl+S - Search student by roll number or name\n" +
             "Ctrl+U - Update selected student\n" +
             "Ctrl+D - Delete selected student\n" +
             "Ctrl+R - Clear/Reset all fields\n" +
             "F1 - Show this help\n" +
-            "F5 - Refresh data from file\n\n" +
+            "F5 - Refresh data from file (changes are also picked up automatically)\n" +
+            "F12 - Show operation timings\n\n" +
             "TABLE NAVIGATION:\n" +
             "Delete - Delete selected student\n" +
             "Enter - Load student data to fields\n" +
             "Escape - Clear selection\n" +
             "Ctrl+Arrow UP - Select previous student\n" +
-            "Ctrl+Arrow DOWN - Select next student\n\n" +
+            "Ctrl+Arrow DOWN - Select next student\n" +
+            "Click a column header - Sort by it (again to reverse)\n\n" +
             "TIP: Use arrow keys to navigate the table,\n" +
             "then press Enter to edit the selected student!";
             
         JOptionPane.showMessageDialog(this, helpText, "Keyboard Shortcuts Help", JOptionPane.INFORMATION_MESSAGE);
     }
 
+    // Latency percentiles and I/O totals, also printed for logs
+    private void showMetrics() {
+        String dump = metrics.dump();
+        StudentLog.info("Metrics:" + System.lineSeparator() + dump);
+        JTextArea text = new JTextArea(dump);
+        text.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        text.setEditable(false);
+        JOptionPane.showMessageDialog(this, new JScrollPane(text), "Operation Metrics", JOptionPane.INFORMATION_MESSAGE);
+    }
+
     private void addStudent() {
         try {
             int rollNumber = Integer.parseInt(rollField.getText().trim());
@@ -794,19 +1038,19 @@ public class StudentGUI extends JFrame {
             }
             
             // Check if roll number already exists
-            for (Student s : students) {
-                if (s.getRollNumber() == rollNumber) {
-                    showMessage("Student with roll number " + rollNumber + " already exists!", "Duplicate Entry");
-                    return;
-                }
-            }
-            
+            long start = System.nanoTime();
             Student student = new Student(rollNumber, name, marks);
-            students.add(student);
-            tableModel.addRow(new Object[]{rollNumber, name, marks});
+            if (!store.add(student)) {
+                metrics.record(StudentMetrics.Operation.ADD, start);
+                showMessage("Student with roll number " + rollNumber + " already exists!", "Duplicate Entry");
+                return;
+            }
+            aggregates.add(marks);
+            tableModel.rowAdded(store.size() - 1);
             updateDashboardMetrics();
             clearFields();
-            saveDataToFile(); // Save data after adding
+            persistChange(student.getRollNumber(), j -> j.recordAdd(student)); // Save data after adding
+            metrics.record(StudentMetrics.Operation.ADD, start);
             showMessage("Success! Student added successfully!\n\nName: " + name + " (Roll: " + rollNumber + ")\nMarks: " + marks, "Success");
             
         } catch (NumberFormatException ex) {
@@ -832,18 +1076,21 @@ public class StudentGUI extends JFrame {
             }
             
             // Find and update student
-            Student student = students.get(selectedRow);
-            student.setName(name);
-            student.setMarks(marks);
+            long start = System.nanoTime();
+            int position = tableModel.positionAt(selectedRow);
+            int studentRoll = store.rollAt(position);
+            int oldRow = tableModel.rowOf(position);
+            aggregates.update(store.marksAt(position), marks);
+            store.update(studentRoll, name, marks);
+            Student student = store.get(position);
             
             // Update table
-            tableModel.setValueAt(rollNumber, selectedRow, 0);
-            tableModel.setValueAt(name, selectedRow, 1);
-            tableModel.setValueAt(marks, selectedRow, 2);
+            tableModel.rowUpdated(position, oldRow);
             updateDashboardMetrics();
             
             clearFields();
-            saveDataToFile(); // Save data after updating
+            persistChange(student.getRollNumber(), j -> j.recordUpdate(student)); // Save data after updating
+            metrics.record(StudentMetrics.Operation.UPDATE, start);
             showMessage("Updated! Student updated successfully!\n\nName: " + name + " (Roll: " + rollNumber + ")\nNew Marks: " + marks, "Update Success");
             
         } catch (NumberFormatException ex) {
@@ -864,44 +1111,85 @@ public class StudentGUI extends JFrame {
             JOptionPane.YES_NO_OPTION);
             
         if (confirm == JOptionPane.YES_OPTION) {
-            String studentName = students.get(selectedRow).getName();
-            students.remove(selectedRow);
-            tableModel.removeRow(selectedRow);
+            long start = System.nanoTime();
+            int position = tableModel.positionAt(selectedRow);
+            int oldRow = tableModel.rowOf(position);
+            Student removed = store.remove(store.rollAt(position));
+            String studentName = removed.getName();
+            aggregates.remove(removed.getMarks());
+            tableModel.rowRemoved(position, store.size(), oldRow);
             updateDashboardMetrics();
             clearFields();
-            saveDataToFile(); // Save data after deleting
+            persistChange(removed.getRollNumber(), j -> j.recordDelete(removed.getRollNumber())); // Save data after deleting
+            metrics.record(StudentMetrics.Operation.DELETE, start);
             showMessage("Deleted! Student deleted successfully!\n\nName: " + studentName + " has been removed from records.", "Deletion Complete");
         }
     }
 
     private void searchStudent() {
-        String rollText = JOptionPane.showInputDialog(this, "Enter Roll Number to Search:");
+        String rollText = JOptionPane.showInputDialog(this, "Enter Roll Number or Name to Search:\n(end a name with * to match the start only)");
         if (rollText != null && !rollText.trim().isEmpty()) {
+            String query = rollText.trim();
+            if (!query.matches("[+-]?\\d+")) {
+                searchStudentByName(query);
+                return;
+            }
             try {
-                int rollNumber = Integer.parseInt(rollText.trim());
+                int rollNumber = Integer.parseInt(query);
                 
-                for (int i = 0; i < students.size(); i++) {
-                    if (students.get(i).getRollNumber() == rollNumber) {
-                        table.setRowSelectionInterval(i, i);
-                        table.scrollRectToVisible(table.getCellRect(i, 0, true));
-                        
-                        Student s = students.get(i);
-                        rollField.setText(String.valueOf(s.getRollNumber()));
-                        nameField.setText(s.getName());
-                        marksField.setText(String.valueOf(s.getMarks()));
-                        
-                        showMessage("Found! Student found!\n\nName: " + s.getName() + " (Roll: " + s.getRollNumber() + ")\nMarks: " + s.getMarks(), "Search Success");
-                        return;
-                    }
+                long start = System.nanoTime();
+                int i = store.indexOf(rollNumber);
+                metrics.record(StudentMetrics.Operation.SEARCH, start);
+                if (i >= 0) {
+                    selectSearchResult(i);
+                    Student s = store.get(i);
+                    showMessage("Found! Student found!\n\nName: " + s.getName() + " (Roll: " + s.getRollNumber() + ")\nMarks: " + s.getMarks()
+                        + "\nRank: " + store.rankOf(rollNumber) + " of " + store.size(), "Search Success");
+                    return;
                 }
                 showMessage("Not Found! Student not found!\n\nNo student with roll number " + rollNumber + " exists in the database.", "Search Result");
                 
             } catch (NumberFormatException ex) {
-                showMessage("Invalid Input! Invalid input!\n\nPlease enter a valid roll number (numbers only).", "Input Error");
+                showMessage("Invalid Input! Invalid input!\n\nPlease enter a valid roll number or a name.", "Input Error");
             }
         }
     }
 
+    private static final int NAME_SEARCH_LIMIT = 10;
+
+    // Case-insensitive name search; selects the first match and lists the rest
+    private void searchStudentByName(String query) {
+        boolean prefixOnly = query.endsWith("*");
+        String needle = prefixOnly ? query.substring(0, query.length() - 1).trim() : query;
+        long start = System.nanoTime();
+        int[] rolls = store.searchNames(needle, prefixOnly, NAME_SEARCH_LIMIT + 1);
+        metrics.record(StudentMetrics.Operation.SEARCH, start);
+        if (rolls.length == 0) {
+            showMessage("Not Found! Student not found!\n\nNo student name matches \"" + query + "\".", "Search Result");
+            return;
+        }
+        selectSearchResult(store.indexOf(rolls[0]));
+        StringBuilder found = new StringBuilder("Found! Students matching \"" + query + "\":\n\n");
+        for (int i = 0; i < Math.min(rolls.length, NAME_SEARCH_LIMIT); i++) {
+            Student s = store.findByRoll(rolls[i]);
+            found.append(s.getName()).append(" (Roll: ").append(s.getRollNumber()).append(") - Marks: ").append(s.getMarks()).append('\n');
+        }
+        if (rolls.length > NAME_SEARCH_LIMIT) {
+            found.append("...and more. Refine the name to narrow the list.");
+        }
+        showMessage(found.toString(), "Search Success");
+    }
+
+    private void selectSearchResult(int position) {
+        int row = tableModel.rowOf(position);
+        table.setRowSelectionInterval(row, row);
+        table.scrollRectToVisible(table.getCellRect(row, 0, true));
+        
+        rollField.setText(String.valueOf(store.rollAt(position)));
+        nameField.setText(store.nameAt(position));
+        marksField.setText(String.valueOf(store.marksAt(position)));
+    }
+
     private void clearFields() {
         rollField.setText("");
         nameField.setText("");
@@ -916,69 +1204,197 @@ public class StudentGUI extends JFrame {
     }
 
     // Database methods for data persistence
-    private void saveDataToFile() {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(DATA_FILE))) {
-            for (Student student : students) {
-                // Escape commas in names by wrapping in quotes if needed
-                String name = student.getName();
-                if (name.contains(",") || name.contains("\"")) {
-                    name = "\"" + name.replace("\"", "\"\"") + "\"";
+    private interface JournalEntry {
+        void writeTo(StudentJournal journal) throws IOException;
+    }
+
+    // Queues one change for the background saver. In journal mode the entry is
+    // appended to the journal; in sharded mode the next flush rewrites the
+    // roll's shard, otherwise the whole data file.
+    private void persistChange(int rollNumber, JournalEntry entry) {
+        if (journal != null) {
+            pendingJournalEntries.add(entry);
+        } else if (shards != null) {
+            shards.markDirty(rollNumber);
+        }
+        saver.markDirty();
+    }
+
+    // Our own writes go through the watcher so they are not read back as outside changes
+    private WriteBehindSaver.PendingWrite captureOwnWrite() {
+        WriteBehindSaver.PendingWrite write = capturePendingWrite();
+        return watcher == null ? write : () -> watcher.ownWrite(write);
+    }
+
+    // Runs on the EDT when the saver flushes: captures what the persistence thread writes
+    private WriteBehindSaver.PendingWrite capturePendingWrite() {
+        if (shards != null) {
+            int[] dirty = shards.takeDirtyShards();
+            StudentStore snapshot = store.snapshot();
+            return () -> {
+                try {
+                    saveShards(snapshot, dirty);
+                } catch (IOException | RuntimeException e) {
+                    shards.markShardsDirty(dirty);
+                    throw e;
+                }
+            };
+        }
+        if (journal == null) {
+            StudentStore snapshot = store.snapshot();
+            return () -> saveDataToFile(snapshot);
+        }
+        final java.util.List<JournalEntry> batch = new ArrayList<>(pendingJournalEntries);
+        pendingJournalEntries.clear();
+        final StudentStore compactionSource = journal.needsCompaction() ? store.snapshot() : null;
+        return () -> {
+            try {
+                for (JournalEntry entry : batch) {
+                    entry.writeTo(journal);
+                }
+                journal.flush();
+            } catch (IOException | RuntimeException e) {
+                // Entries are absolute, so writing some of them twice is harmless
+                SwingUtilities.invokeLater(() -> pendingJournalEntries.addAll(0, batch));
+                throw e;
+            }
+            if (compactionSource != null) {
+                journal.compactIfNeeded(compactionSource);
+            }
+        };
+    }
+
+    // Runs on the EDT with what another process changed in the data file (or
+    // journal), applied with one row event per record
+    private void applyOutsideChanges(DataFileWatcher.Update update) {
+        java.util.List<StudentJournal.Entry> entries = update.entriesFor(store);
+        boolean rowEvents = entries.size() <= MAX_ROW_EVENTS;
+        for (StudentJournal.Entry entry : entries) {
+            int position = store.indexOf(entry.rollNumber);
+            if (entry.student == null) {
+                if (position < 0) {
+                    continue;
+                }
+                int oldRow = rowEvents ? tableModel.rowOf(position) : -1;
+                Student removed = store.remove(entry.rollNumber);
+                aggregates.remove(removed.getMarks());
+                if (rowEvents) {
+                    tableModel.rowRemoved(position, store.size(), oldRow);
+                }
+            } else if (position < 0) {
+                store.add(entry.student);
+                aggregates.add(entry.student.getMarks());
+                if (rowEvents) {
+                    tableModel.rowAdded(store.size() - 1);
+                }
+            } else {
+                int oldRow = rowEvents ? tableModel.rowOf(position) : -1;
+                aggregates.update(store.marksAt(position), entry.student.getMarks());
+                store.update(entry.rollNumber, entry.student.getName(), entry.student.getMarks());
+                if (rowEvents) {
+                    tableModel.rowUpdated(position, oldRow);
                 }
-                writer.println(student.getRollNumber() + "," + name + "," + student.getMarks());
             }
-            System.out.println("Saved " + students.size() + " students to file.");
+        }
+        if (!rowEvents) {
+            tableModel.fireTableDataChanged();
+        }
+        if (!entries.isEmpty()) {
+            updateDashboardMetrics();
+            // A save captured before these arrived has written the file without them
+            if (journal == null && (update.overwritten() || saver.hasPendingChanges())) {
+                saver.markDirty();
+            }
+        }
+        statusLabel.setText(entries.isEmpty() ? "No new changes in " + watcher.file().getName()
+            : "Loaded " + entries.size() + " change(s) from " + watcher.file().getName());
+    }
+
+    private void closeWatcher() {
+        if (watcher == null) {
+            return;
+        }
+        try {
+            watcher.close();
         } catch (IOException e) {
-            showMessage("Error saving data to file: " + e.getMessage(), "Save Error");
+            StudentLog.error("Error closing data file watcher: " + e.getMessage());
         }
     }
 
+    private void closeJournal() {
+        try {
+            journal.close();
+        } catch (IOException e) {
+            StudentLog.error("Error closing change journal: " + e.getMessage());
+        }
+    }
+
+    // Called on the persistence thread with a private copy of the store
+    private void saveDataToFile(StudentStore source) throws IOException {
+        dataFormat.write(source, dataFile);
+        StudentLog.info("Saved " + source.size() + " students to file.");
+    }
+
+    private void saveShards(StudentStore source, int[] dirty) throws IOException {
+        shards.write(source, dirty);
+        StudentLog.info("Saved " + dirty.length + " of the shards in " + shards.directory() + ".");
+    }
+
     private void loadDataFromFile() {
-        File file = new File(DATA_FILE);
-        if (!file.exists()) {
-            return; // No data file exists yet
-        }
-        
-        try (Scanner scanner = new Scanner(file)) {
-            while (scanner.hasNextLine()) {
-                String line = scanner.nextLine().trim();
-                if (!line.isEmpty()) {
-                    String[] parts = line.split(",", -1); // Use -1 to preserve empty fields
-                    if (parts.length == 3) {
-                        try {
-                            int rollNumber = Integer.parseInt(parts[0].trim());
-                            String name = parts[1].trim();
-                            
-                            // Skip records with empty names
-                            if (name.isEmpty()) {
-                                System.err.println("Skipping record with empty name: " + line);
-                                continue;
-                            }
-                            
-                            double marks = Double.parseDouble(parts[2].trim());
-                            students.add(new Student(rollNumber, name, marks));
-                            System.out.println("Loaded student: " + rollNumber + ", " + name + ", " + marks);
-                        } catch (NumberFormatException e) {
-                            System.err.println("Error parsing line: " + line + " - " + e.getMessage());
-                        }
-                    } else {
-                        System.err.println("Invalid line format (expected 3 parts): " + line);
-                    }
-                }
+        if (shards != null && shards.exists()) {
+            loadShards();
+        } else if (dataFile.exists()) {
+            loadSnapshot(dataFile);
+            if (shards != null) {
+                // First run with shards: the next save splits the data file into them
+                shards.markAllDirty(store);
+                saver.markDirty();
             }
-            System.out.println("Loaded " + students.size() + " students from file.");
+        }
+        replayJournal();
+        aggregates.rebuild();
+    }
+
+    private void loadSnapshot(File file) {
+        try {
+            FastStudentLoader.LoadReport report = dataFormat.read(file, store);
+            StudentLog.skipped(file.getName(), report.rejected, report.rejectedSamples);
+            StudentLog.info(report.summary());
         } catch (IOException e) {
             showMessage("Error loading data from file: " + e.getMessage(), "Load Error");
         }
     }
 
-    private void loadDataIntoTable() {
-        for (Student student : students) {
-            tableModel.addRow(new Object[]{
-                student.getRollNumber(),
-                student.getName(),
-                student.getMarks()
-            });
+    private void loadShards() {
+        try {
+            FastStudentLoader.LoadReport report = shards.load(store);
+            StudentLog.skipped("the shards in " + shards.directory(), report.rejected, report.rejectedSamples);
+            StudentLog.info(report.summary());
+            if (shards.hasDirtyShards()) {
+                // Records found in the wrong shard are moved by the next save
+                saver.markDirty();
+            }
+        } catch (IOException e) {
+            showMessage("Error loading data from " + shards.directory() + ": " + e.getMessage(), "Load Error");
         }
+    }
+
+    // Applies journaled edits on top of the snapshot just loaded
+    private void replayJournal() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            int replayed = journal.replay(store);
+            StudentLog.info("Replayed " + replayed + " journal entries.");
+        } catch (IOException e) {
+            showMessage("Error replaying change journal: " + e.getMessage(), "Load Error");
+        }
+    }
+
+    private void loadDataIntoTable() {
+        // The model reads from the store directly; just tell the table everything changed
+        tableModel.fireTableDataChanged();
         updateDashboardMetrics();
     }
 
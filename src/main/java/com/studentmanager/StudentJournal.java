@@ -0,0 +1,305 @@
+package com.studentmanager;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Append-only change log kept next to the data file. Each mutation is one line:
+//   A,<roll,name,marks>   added
+//   U,<roll,name,marks>   updated
+//   D,<roll>              deleted
+// On startup the journal is replayed over the last snapshot. Once it grows past
+// the compaction threshold it is rotated aside and a background thread folds it
+// into a fresh snapshot, so no single edit pays for rewriting the whole file.
+public class StudentJournal implements Closeable {
+    public static final long DEFAULT_COMPACT_THRESHOLD = 4L * 1024 * 1024;
+    // Set to "journal" to append each edit to a change log instead of rewriting the data file
+    public static final String PERSISTENCE_PROPERTY = "studentmanager.persistence";
+
+    private final File snapshotFile;
+    private final SnapshotFormat format;
+    private final File journalFile;
+    private final File compactingFile;
+    private final long compactThreshold;
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "journal-compactor");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final FsyncPolicy fsync = FsyncPolicy.configured();
+
+    private FileOutputStream out;
+    private Writer writer;
+    private long journalBytes;
+    private long unflushedBytes; // appended but not yet counted as written
+    private boolean compacting;
+
+    public StudentJournal(File snapshotFile) {
+        this(snapshotFile, SnapshotFormat.forFile(snapshotFile), DEFAULT_COMPACT_THRESHOLD);
+    }
+
+    StudentJournal(File snapshotFile, SnapshotFormat format, long compactThreshold) {
+        this.snapshotFile = snapshotFile;
+        this.format = format;
+        this.journalFile = new File(snapshotFile.getPath() + ".journal");
+        this.compactingFile = new File(snapshotFile.getPath() + ".journal.compacting");
+        this.compactThreshold = compactThreshold;
+    }
+
+    // True when PERSISTENCE_PROPERTY selects journal mode
+    public static boolean isConfigured() {
+        return "journal".equalsIgnoreCase(System.getProperty(PERSISTENCE_PROPERTY));
+    }
+
+    // Applies any journaled changes to a store already loaded from the snapshot
+    // and opens the journal for appending. Returns the number of entries replayed.
+    public synchronized int replay(StudentStore store) throws IOException {
+        closeWriter();
+        int replayed = 0;
+        // A rotated journal with no compaction running means the last one died midway
+        boolean interruptedCompaction = !compacting && compactingFile.exists();
+        if (interruptedCompaction) {
+            replayed += replayFile(compactingFile, store);
+        }
+        replayed += replayFile(journalFile, store);
+
+        if (interruptedCompaction) {
+            writeSnapshot(store);
+            Files.deleteIfExists(compactingFile.toPath());
+            Files.deleteIfExists(journalFile.toPath());
+        }
+        openWriter();
+        return replayed;
+    }
+
+    // Applies the journaled changes like replay, but only reads: a rotated
+    // journal left by an interrupted compaction is applied without being folded
+    // into the snapshot or deleted, and no writer is opened. For commands that
+    // may run beside the application that owns the journal.
+    public synchronized int replayReadOnly(StudentStore store) throws IOException {
+        int replayed = 0;
+        if (compactingFile.exists()) {
+            replayed += replayFile(compactingFile, store);
+        }
+        return replayed + replayFile(journalFile, store);
+    }
+
+    public synchronized void recordAdd(Student student) throws IOException {
+        append("A," + StudentCsv.format(student));
+    }
+
+    public synchronized void recordUpdate(Student student) throws IOException {
+        append("U," + StudentCsv.format(student));
+    }
+
+    public synchronized void recordDelete(int rollNumber) throws IOException {
+        append("D," + rollNumber);
+    }
+
+    // Pushes appended entries to the operating system and, unless the fsync
+    // policy is none, to the disk: one fsync for all entries since the last flush
+    public synchronized void flush() throws IOException {
+        long start = System.nanoTime();
+        if (writer != null) {
+            writer.flush();
+            fsync.completed(out.getChannel());
+            countWritten();
+        }
+        StudentMetrics.get().record(StudentMetrics.Operation.JOURNAL_FLUSH, start);
+    }
+
+    File journalFile() {
+        return journalFile;
+    }
+
+    public synchronized boolean needsCompaction() {
+        return journalBytes >= compactThreshold && !compacting;
+    }
+
+    // Starts a background compaction if the journal has outgrown its threshold.
+    // The store must not change while this runs; callers off the owning thread
+    // pass a snapshot.
+    public synchronized void compactIfNeeded(StudentStore store) throws IOException {
+        if (!needsCompaction()) {
+            return;
+        }
+        final StudentStore records = store.snapshot();
+        closeWriter();
+        if (compactingFile.exists()) {
+            // An earlier compaction failed; its edits are in no snapshot yet
+            appendToCompacting();
+        } else {
+            AtomicFiles.move(journalFile, compactingFile);
+        }
+        openWriter();
+        compacting = true;
+        compactor.execute(() -> {
+            try {
+                writeSnapshot(records);
+                Files.deleteIfExists(compactingFile.toPath());
+                StudentLog.info("Compacted journal into snapshot (" + records.size() + " students).");
+            } catch (IOException | RuntimeException e) {
+                // Leave the rotated journal in place; it is replayed on next startup,
+                // and the next compaction appends to it
+                StudentLog.error("Journal compaction failed: " + e.getMessage());
+            } finally {
+                synchronized (StudentJournal.this) {
+                    compacting = false;
+                }
+            }
+        });
+    }
+
+    @Override
+    public void close() throws IOException {
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            closeWriter();
+        }
+    }
+
+    private void append(String entry) throws IOException {
+        if (writer == null) {
+            openWriter();
+        }
+        writer.write(entry);
+        writer.write('\n');
+        int bytes = entry.getBytes(StandardCharsets.UTF_8).length + 1;
+        journalBytes += bytes;
+        unflushedBytes += bytes;
+    }
+
+    // Adds what the last flush or close pushed out to the bytes-written metric,
+    // once per flush rather than per entry
+    private void countWritten() {
+        StudentMetrics.get().addBytesWritten(unflushedBytes);
+        unflushedBytes = 0;
+    }
+
+    // Moves the journal's entries onto the end of the rotated journal. Entries
+    // are absolute, so a crash between the append and the delete, which
+    // replays them twice, still ends in the same state.
+    private void appendToCompacting() throws IOException {
+        if (journalFile.exists()) {
+            try (FileOutputStream rotated = new FileOutputStream(compactingFile, true)) {
+                Files.copy(journalFile.toPath(), rotated);
+                fsync.completed(rotated.getChannel());
+            }
+            Files.delete(journalFile.toPath());
+            fsync.directoryChanged(journalFile.getAbsoluteFile().getParentFile());
+        }
+    }
+
+    private void openWriter() throws IOException {
+        out = new FileOutputStream(journalFile, true);
+        writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        journalBytes = journalFile.length();
+    }
+
+    private void closeWriter() throws IOException {
+        if (writer != null) {
+            writer.close();
+            countWritten();
+            writer = null;
+            out = null;
+        }
+    }
+
+    private int replayFile(File file, StudentStore store) throws IOException {
+        if (!file.exists()) {
+            return 0;
+        }
+        int applied = 0;
+        int skipped = 0;
+        String firstSkipped = null;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            long lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isEmpty()) {
+                    continue;
+                }
+                try {
+                    Entry.parse(line).applyTo(store);
+                    applied++;
+                } catch (IllegalArgumentException e) {
+                    // A torn last line after a crash ends up here as well
+                    StudentLog.rejected(file.getName(), lineNumber, e.getMessage(), line);
+                    if (skipped++ == 0) {
+                        firstSkipped = "line " + lineNumber + ": " + e.getMessage();
+                    }
+                }
+            }
+        }
+        StudentLog.skipped("journal " + file.getName(), skipped,
+            firstSkipped == null ? Collections.<String>emptyList() : Collections.singletonList(firstSkipped));
+        return applied;
+    }
+
+    // Replaces the snapshot in one rename, so the old one stays whole until then
+    private void writeSnapshot(StudentStore records) throws IOException {
+        format.write(records, snapshotFile);
+    }
+
+    // One journal line: an add or update carries the full record, a delete
+    // only the roll number
+    static final class Entry {
+        final int rollNumber;
+        final Student student; // null for a delete
+
+        Entry(int rollNumber, Student student) {
+            this.rollNumber = rollNumber;
+            this.student = student;
+        }
+
+        static Entry upsert(Student student) {
+            return new Entry(student.getRollNumber(), student);
+        }
+
+        // Throws IllegalArgumentException on a malformed line
+        static Entry parse(String line) {
+            if (line.length() < 2 || line.charAt(1) != ',') {
+                throw new IllegalArgumentException("unknown entry");
+            }
+            switch (line.charAt(0)) {
+                case 'A':
+                case 'U':
+                    return upsert(StudentCsv.parse(line, 2));
+                case 'D':
+                    return new Entry(Integer.parseInt(line.substring(2).trim()), null);
+                default:
+                    throw new IllegalArgumentException("unknown entry");
+            }
+        }
+
+        // Entries are absolute, so applying one twice leaves the store unchanged
+        void applyTo(StudentStore store) {
+            if (student == null) {
+                store.remove(rollNumber);
+            } else if (!store.update(rollNumber, student.getName(), student.getMarks())) {
+                store.add(student);
+            }
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.studentmanager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Minimal JSON for the HTTP API: writes students and flat objects, and reads
+// flat request bodies such as {"rollNumber": 7, "name": "Sara", "marks": 88.5}.
+// Nested objects and arrays are not accepted in requests.
+final class StudentJson {
+    private StudentJson() {
+    }
+
+    static String student(Student student) {
+        StringBuilder sb = new StringBuilder(64);
+        appendStudent(sb, student);
+        return sb.toString();
+    }
+
+    static String students(Student[] students) {
+        StringBuilder sb = new StringBuilder(2 + students.length * 48);
+        sb.append('[');
+        for (int i = 0; i < students.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            appendStudent(sb, students[i]);
+        }
+        return sb.append(']').toString();
+    }
+
+    static void appendStudent(StringBuilder sb, Student student) {
+        sb.append("{\"rollNumber\":").append(student.getRollNumber())
+            .append(",\"name\":");
+        appendString(sb, student.getName());
+        sb.append(",\"marks\":");
+        appendNumber(sb, student.getMarks());
+        sb.append('}');
+    }
+
+    static void appendString(StringBuilder sb, String value) {
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+
+    // JSON has no NaN or infinity; those become null
+    static void appendNumber(StringBuilder sb, double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            sb.append("null");
+        } else {
+            sb.append(value);
+        }
+    }
+
+    static String error(String message) {
+        StringBuilder sb = new StringBuilder("{\"error\":");
+        appendString(sb, message);
+        return sb.append('}').toString();
+    }
+
+    // Parses a flat object into field name -> raw value: strings unescaped,
+    // numbers, booleans and null as written. Throws IllegalArgumentException.
+    static Map<String, String> parseObject(String text) {
+        Parser parser = new Parser(text);
+        Map<String, String> fields = new LinkedHashMap<>();
+        parser.skipSpaces();
+        parser.expect('{');
+        parser.skipSpaces();
+        if (!parser.consume('}')) {
+            do {
+                parser.skipSpaces();
+                String name = parser.string();
+                parser.skipSpaces();
+                parser.expect(':');
+                parser.skipSpaces();
+                fields.put(name, parser.value());
+                parser.skipSpaces();
+            } while (parser.consume(','));
+            parser.expect('}');
+        }
+        parser.skipSpaces();
+        if (!parser.atEnd()) {
+            throw new IllegalArgumentException("unexpected content after object");
+        }
+        return fields;
+    }
+
+    private static final class Parser {
+        private final String text;
+        private int pos;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        boolean atEnd() {
+            return pos >= text.length();
+        }
+
+        void skipSpaces() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        boolean consume(char c) {
+            if (pos < text.length() && text.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        void expect(char c) {
+            if (!consume(c)) {
+                throw new IllegalArgumentException("expected '" + c + "' at offset " + pos);
+            }
+        }
+
+        String value() {
+            if (pos < text.length() && text.charAt(pos) == '"') {
+                return string();
+            }
+            int start = pos;
+            while (pos < text.length() && ",}] \t\r\n".indexOf(text.charAt(pos)) < 0) {
+                char c = text.charAt(pos);
+                if (c == '{' || c == '[') {
+                    throw new IllegalArgumentException("nested values are not supported");
+                }
+                pos++;
+            }
+            if (start == pos) {
+                throw new IllegalArgumentException("missing value at offset " + pos);
+            }
+            return text.substring(start, pos);
+        }
+
+        String string() {
+            expect('"');
+            StringBuilder sb = new StringBuilder();
+            while (true) {
+                if (pos >= text.length()) {
+                    throw new IllegalArgumentException("unterminated string");
+                }
+                char c = text.charAt(pos++);
+                if (c == '"') {
+                    return sb.toString();
+                }
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                if (pos >= text.length()) {
+                    throw new IllegalArgumentException("unterminated string");
+                }
+                char escaped = text.charAt(pos++);
+                switch (escaped) {
+                    case '"': case '\\': case '/': sb.append(escaped); break;
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'n': sb.append('\n'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'u':
+                        if (pos + 4 > text.length()) {
+                            throw new IllegalArgumentException("bad unicode escape");
+                        }
+                        sb.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        pos += 4;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("bad escape '\\" + escaped + "'");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,369 @@
+package com.studentmanager;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Diagnostics of the app: loads, saves, skipped lines and errors. Callers
+// never touch the console or a file themselves; an event goes into a bounded
+// lock-free ring and a single background thread ("student-log") formats and
+// writes it, stdout for DEBUG and INFO, stderr for WARN and ERROR:
+//
+//   2026-10-18 14:03:07.412 INFO  Saved 1000 students to file.
+//
+// Lines rejected by a load, import or replay are not printed one by one;
+// they are counted, and with -Dstudentmanager.rejectLog=<file> every one is
+// appended to that file as a JSON line (source, line number, reason, text).
+//
+// The level comes from -Dstudentmanager.log (debug, info, warn, error or off;
+// default info) and is fixed at startup, so a disabled check folds away in
+// hot loops. A full ring drops a message rather than block the caller; drops
+// are counted with everything else in summary(). Rejected lines are never
+// dropped: with a reject log the loader waits for room instead.
+final class StudentLog {
+    enum Level {
+        DEBUG, INFO, WARN, ERROR, OFF
+    }
+
+    static final String LEVEL_PROPERTY = "studentmanager.log";
+    static final String REJECT_LOG_PROPERTY = "studentmanager.rejectLog";
+
+    private static final Level LEVEL = configuredLevel();
+    private static final String REJECT_LOG = System.getProperty(REJECT_LOG_PROPERTY);
+    private static final boolean REJECTS_LOGGED = REJECT_LOG != null && !REJECT_LOG.trim().isEmpty();
+
+    private static final int CAPACITY = 1 << 13;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private static final LongAdder[] EMITTED = new LongAdder[Level.OFF.ordinal()];
+    private static final LongAdder REJECTED = new LongAdder();
+    private static final LongAdder DROPPED = new LongAdder();
+    private static volatile boolean started; // set once the writer thread runs
+
+    static {
+        for (int i = 0; i < EMITTED.length; i++) {
+            EMITTED[i] = new LongAdder();
+        }
+    }
+
+    private StudentLog() {
+    }
+
+    static boolean isEnabled(Level level) {
+        return level.compareTo(LEVEL) >= 0;
+    }
+
+    // True when rejected lines go to a file, so callers can skip building the text
+    static boolean rejectsLogged() {
+        return REJECTS_LOGGED;
+    }
+
+    static void debug(String message) {
+        log(Level.DEBUG, message, null);
+    }
+
+    static void info(String message) {
+        log(Level.INFO, message, null);
+    }
+
+    static void warn(String message) {
+        log(Level.WARN, message, null);
+    }
+
+    static void error(String message) {
+        log(Level.ERROR, message, null);
+    }
+
+    static void error(String message, Throwable failure) {
+        log(Level.ERROR, message, failure);
+    }
+
+    static void log(Level level, String message, Throwable failure) {
+        if (!isEnabled(level)) {
+            return;
+        }
+        EMITTED[level.ordinal()].increment();
+        LogWriter.INSTANCE.offer(new Event(level, message, failure, null, 0, null), false);
+    }
+
+    // Counts one rejected input line and, when a reject log is configured,
+    // records it there. line is 0 when not known; text may be null when the
+    // caller has no raw line.
+    static void rejected(String source, long line, String reason, String text) {
+        REJECTED.increment();
+        if (REJECTS_LOGGED) {
+            LogWriter.INSTANCE.offer(new Event(null, reason, null, source, line, text), true);
+        }
+    }
+
+    // Counts lines rejected where only a count is known; see rejected()
+    static void rejected(long count) {
+        REJECTED.add(count);
+    }
+
+    // One warning for all the lines a load or replay skipped, in place of a
+    // line each; samples are the load report's, the first one is shown
+    static void skipped(String source, int count, List<String> samples) {
+        if (count == 0 || !isEnabled(Level.WARN)) {
+            return;
+        }
+        StringBuilder sb = new StringBuilder("Skipped ").append(count)
+            .append(count == 1 ? " line of " : " lines of ").append(source);
+        if (!samples.isEmpty()) {
+            sb.append(" (first: ").append(samples.get(0)).append(')');
+        }
+        if (REJECTS_LOGGED) {
+            sb.append("; all are listed in ").append(REJECT_LOG.trim());
+        }
+        warn(sb.toString());
+    }
+
+    // Waits up to timeoutMillis for everything logged so far to be written
+    static void flush(long timeoutMillis) {
+        if (started) {
+            LogWriter.INSTANCE.awaitWritten(timeoutMillis);
+        }
+    }
+
+    static String summary() {
+        return String.format("log: %,d debug, %,d info, %,d warn, %,d error, %,d rejected lines, %,d dropped",
+            EMITTED[0].sum(), EMITTED[1].sum(), EMITTED[2].sum(), EMITTED[3].sum(), REJECTED.sum(), DROPPED.sum());
+    }
+
+    // An unknown level falls back to INFO rather than failing the class's
+    // initialisation, which would take every caller down with it. The log is
+    // not up yet here, so the warning goes straight to stderr.
+    private static Level configuredLevel() {
+        String name = System.getProperty(LEVEL_PROPERTY);
+        if (name == null) {
+            return Level.INFO;
+        }
+        try {
+            return Level.valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Unknown -D" + LEVEL_PROPERTY + " level '" + name + "'; logging at INFO");
+            return Level.INFO;
+        }
+    }
+
+    private static final class Event {
+        final long time = System.currentTimeMillis();
+        final Level level; // null for a rejected line
+        final String message;
+        final Throwable failure;
+        final String source;
+        final long line;
+        final String text;
+
+        Event(Level level, String message, Throwable failure, String source, long line, String text) {
+            this.level = level;
+            this.message = message;
+            this.failure = failure;
+            this.source = source;
+            this.line = line;
+            this.text = text;
+        }
+    }
+
+    // The ring and its consumer thread, started by the first event. The ring
+    // is a bounded multi-producer queue in the style of Vyukov's: a producer
+    // claims a slot by advancing tail with a CAS, fills it and publishes it by
+    // bumping the slot's sequence; only the writer thread reads slots.
+    private static final class LogWriter implements Runnable {
+        static final LogWriter INSTANCE = new LogWriter();
+
+        private final AtomicReferenceArray<Event> slots = new AtomicReferenceArray<>(CAPACITY);
+        private final AtomicLongArray sequences = new AtomicLongArray(CAPACITY);
+        private final AtomicLong tail = new AtomicLong();
+        private final AtomicLong written = new AtomicLong(); // events taken off the ring and handled
+        private final Thread thread = new Thread(this, "student-log");
+        private volatile boolean idle;
+        private long head; // writer thread only
+
+        private final SimpleDateFormat timeFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS", Locale.ROOT);
+        private final StringBuilder out = new StringBuilder();
+        private final StringBuilder err = new StringBuilder();
+        private Writer rejects; // opened with the first rejected line
+
+        private LogWriter() {
+            for (int i = 0; i < CAPACITY; i++) {
+                sequences.set(i, i);
+            }
+            thread.setDaemon(true);
+            thread.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> awaitWritten(2000), "student-log-flush"));
+            started = true;
+        }
+
+        // Queues event; when the ring is full, drops it or, with wait, parks until there is room
+        void offer(Event event, boolean wait) {
+            long claimed = tail.get();
+            while (true) {
+                int slot = (int) claimed & (CAPACITY - 1);
+                long difference = sequences.get(slot) - claimed;
+                if (difference == 0) {
+                    if (tail.compareAndSet(claimed, claimed + 1)) {
+                        slots.set(slot, event);
+                        sequences.set(slot, claimed + 1);
+                        if (idle) {
+                            LockSupport.unpark(thread);
+                        }
+                        return;
+                    }
+                    claimed = tail.get();
+                } else if (difference < 0) {
+                    // Full: the writer is a whole ring behind
+                    if (!wait || Thread.currentThread() == thread) {
+                        DROPPED.increment();
+                        return;
+                    }
+                    LockSupport.unpark(thread);
+                    LockSupport.parkNanos(FULL_PARK_NANOS);
+                    claimed = tail.get();
+                } else {
+                    claimed = tail.get();
+                }
+            }
+        }
+
+        void awaitWritten(long timeoutMillis) {
+            long target = tail.get();
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            while (written.get() < target && System.nanoTime() < deadline
+                    && Thread.currentThread() != thread) {
+                LockSupport.unpark(thread);
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            }
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                int taken = 0;
+                Event event;
+                while ((event = poll()) != null) {
+                    try {
+                        format(event);
+                    } catch (RuntimeException e) {
+                        // One bad event (say a failure whose printStackTrace throws)
+                        // must not end the thread, or every later caller blocks or drops
+                        err.append("Cannot format a log event: ").append(e).append(System.lineSeparator());
+                    }
+                    taken++;
+                }
+                if (taken > 0) {
+                    emit();
+                    written.addAndGet(taken);
+                    continue;
+                }
+                idle = true;
+                if (slotReady()) {
+                    idle = false;
+                    continue;
+                }
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                idle = false;
+            }
+        }
+
+        private boolean slotReady() {
+            return sequences.get((int) head & (CAPACITY - 1)) == head + 1;
+        }
+
+        private Event poll() {
+            if (!slotReady()) {
+                return null;
+            }
+            int slot = (int) head & (CAPACITY - 1);
+            Event event = slots.get(slot);
+            slots.set(slot, null);
+            sequences.set(slot, head + CAPACITY);
+            head++;
+            return event;
+        }
+
+        private void format(Event event) {
+            if (event.level == null) {
+                formatRejected(event);
+                return;
+            }
+            StringBuilder sb = event.level.compareTo(Level.WARN) >= 0 ? err : out;
+            sb.append(timeFormat.format(new Date(event.time))).append(' ');
+            String level = event.level.name();
+            sb.append(level);
+            for (int i = level.length(); i < 6; i++) {
+                sb.append(' ');
+            }
+            sb.append(event.message).append(System.lineSeparator());
+            if (event.failure != null) {
+                StringWriter trace = new StringWriter();
+                event.failure.printStackTrace(new PrintWriter(trace));
+                sb.append(trace);
+            }
+        }
+
+        private void formatRejected(Event event) {
+            try {
+                if (rejects == null) {
+                    rejects = new BufferedWriter(new OutputStreamWriter(
+                        new FileOutputStream(new File(REJECT_LOG.trim()), true), StandardCharsets.UTF_8));
+                }
+                StringBuilder sb = new StringBuilder("{\"time\":");
+                StudentJson.appendString(sb, timeFormat.format(new Date(event.time)));
+                sb.append(",\"source\":");
+                StudentJson.appendString(sb, event.source);
+                sb.append(",\"line\":").append(event.line).append(",\"reason\":");
+                StudentJson.appendString(sb, event.message);
+                sb.append(",\"text\":");
+                if (event.text == null) {
+                    sb.append("null");
+                } else {
+                    StudentJson.appendString(sb, event.text);
+                }
+                rejects.write(sb.append("}\n").toString());
+            } catch (IOException e) {
+                err.append("Cannot write to reject log ").append(REJECT_LOG).append(": ").append(e.getMessage())
+                    .append(System.lineSeparator());
+            }
+        }
+
+        // Writes what the last batch of events produced, one write per stream
+        private void emit() {
+            print(System.out, out);
+            print(System.err, err);
+            if (rejects != null) {
+                try {
+                    rejects.flush();
+                } catch (IOException e) {
+                    System.err.println("Cannot write to reject log " + REJECT_LOG + ": " + e.getMessage());
+                }
+            }
+        }
+
+        private static void print(PrintStream stream, StringBuilder text) {
+            if (text.length() > 0) {
+                stream.print(text);
+                stream.flush();
+                text.setLength(0);
+            }
+        }
+    }
+}
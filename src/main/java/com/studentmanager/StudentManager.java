@@ -1,12 +1,21 @@
 package com.studentmanager;
 
-import java.util.ArrayList;
 import java.util.Scanner;
 
 public class StudentManager {
-    private ArrayList<Student> students = new ArrayList<>();
+    private final StudentRepository store;
+    private final StudentMetrics metrics = StudentMetrics.get();
     private Scanner sc = new Scanner(System.in);
 
+    public StudentManager() {
+        this(new StudentRepository());
+    }
+
+    // The repository may be shared with background work such as an import
+    public StudentManager(StudentRepository store) {
+        this.store = store;
+    }
+
     public void addStudent() {
         System.out.print("Enter Roll Number: ");
         int roll = sc.nextInt();
@@ -16,30 +25,54 @@ public class StudentManager {
         System.out.print("Enter Marks: ");
         double marks = sc.nextDouble();
 
-        students.add(new Student(roll, name, marks));
+        long start = System.nanoTime();
+        boolean added = store.add(new Student(roll, name, marks));
+        metrics.record(StudentMetrics.Operation.ADD, start);
+        if (!added) {
+            System.out.println("Student with roll number " + roll + " already exists!");
+            return;
+        }
         System.out.println("Student added successfully!");
     }
 
     public void viewStudents() {
-        if (students.isEmpty()) {
+        if (store.isEmpty()) {
             System.out.println("No records found.");
         } else {
             System.out.println("\n--- Student Records ---");
-            for (Student s : students) {
-                s.display();
+            // The snapshot merges the repository's stripes, whose removals move
+            // their last record into the gap, so its order means nothing; list
+            // the records by roll number instead
+            StudentStore records = store.snapshot();
+            for (int position : records.sortedPositions(StudentStore.SortKey.ROLL, false, 0, records.size())) {
+                records.get(position).display();
             }
         }
     }
 
     public void searchStudent() {
-        System.out.print("Enter Roll Number to Search: ");
-        int roll = sc.nextInt();
+        System.out.print("Enter Roll Number or Name to Search: ");
+        sc.nextLine(); // consume newline
+        String query = sc.nextLine().trim();
 
-        for (Student s : students) {
-            if (s.getRollNumber() == roll) {
-                s.display();
-                return;
+        long start = System.nanoTime();
+        if (!query.matches("[+-]?\\d+")) {
+            Student[] matches = store.searchNames(query, false, 20);
+            metrics.record(StudentMetrics.Operation.SEARCH, start);
+            for (Student match : matches) {
+                match.display();
+            }
+            if (matches.length == 0) {
+                System.out.println("Student not found.");
             }
+            return;
+        }
+
+        Student s = store.findByRoll(Integer.parseInt(query));
+        metrics.record(StudentMetrics.Operation.SEARCH, start);
+        if (s != null) {
+            s.display();
+            return;
         }
         System.out.println("Student not found.");
     }
@@ -48,18 +81,18 @@ public class StudentManager {
         System.out.print("Enter Roll Number to Update: ");
         int roll = sc.nextInt();
 
-        for (Student s : students) {
-            if (s.getRollNumber() == roll) {
-                sc.nextLine(); // consume newline
-                System.out.print("Enter new name: ");
-                String name = sc.nextLine();
-                System.out.print("Enter new marks: ");
-                double marks = sc.nextDouble();
-                s.setName(name);
-                s.setMarks(marks);
-                System.out.println("Record updated.");
-                return;
-            }
+        Student s = store.findByRoll(roll);
+        if (s != null) {
+            sc.nextLine(); // consume newline
+            System.out.print("Enter new name: ");
+            String name = sc.nextLine();
+            System.out.print("Enter new marks: ");
+            double marks = sc.nextDouble();
+            long start = System.nanoTime();
+            store.update(roll, name, marks);
+            metrics.record(StudentMetrics.Operation.UPDATE, start);
+            System.out.println("Record updated.");
+            return;
         }
         System.out.println("Student not found.");
     }
@@ -68,12 +101,12 @@ public class StudentManager {
         System.out.print("Enter Roll Number to Delete: ");
         int roll = sc.nextInt();
 
-        for (int i = 0; i < students.size(); i++) {
-            if (students.get(i).getRollNumber() == roll) {
-                students.remove(i);
-                System.out.println("Record deleted.");
-                return;
-            }
+        long start = System.nanoTime();
+        Student removed = store.remove(roll);
+        metrics.record(StudentMetrics.Operation.DELETE, start);
+        if (removed != null) {
+            System.out.println("Record deleted.");
+            return;
         }
         System.out.println("Student not found.");
     }
@@ -0,0 +1,184 @@
+package com.studentmanager;
+
+import java.beans.ConstructorProperties;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// Process-wide operation metrics: a latency histogram and count per
+// operation, plus bytes read and written and records loaded. Callers take
+// System.nanoTime() before an operation and pass it to record(); that and a
+// few atomic adds is the whole cost.
+//
+// Read through JMX (registerMBean), GET /metrics on the API server, or the
+// GUI's dump shortcut.
+public final class StudentMetrics implements StudentMetricsMXBean {
+    public static final String OBJECT_NAME = "com.studentmanager:type=Metrics";
+
+    public enum Operation {
+        ADD, SEARCH, UPDATE, DELETE, SAVE, LOAD, JOURNAL_FLUSH, API_REQUEST
+    }
+
+    private static final StudentMetrics INSTANCE = new StudentMetrics();
+
+    private final LatencyHistogram[] latencies = new LatencyHistogram[Operation.values().length];
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final LongAdder recordsLoaded = new LongAdder();
+
+    private StudentMetrics() {
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new LatencyHistogram();
+        }
+    }
+
+    public static StudentMetrics get() {
+        return INSTANCE;
+    }
+
+    // Registers the MBean with the platform MBean server; safe to call twice
+    public static synchronized void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(INSTANCE, name);
+            }
+        } catch (JMException e) {
+            StudentLog.warn("Could not register metrics MBean: " + e.getMessage());
+        }
+    }
+
+    // Records one operation that started at startNanos (a System.nanoTime() value)
+    public void record(Operation operation, long startNanos) {
+        latencies[operation.ordinal()].record(System.nanoTime() - startNanos);
+    }
+
+    public void addBytesRead(long bytes) {
+        bytesRead.add(bytes);
+    }
+
+    public void addBytesWritten(long bytes) {
+        bytesWritten.add(bytes);
+    }
+
+    public void addRecordsLoaded(long records) {
+        recordsLoaded.add(records);
+    }
+
+    @Override
+    public Map<String, LatencySummary> getLatencies() {
+        Map<String, LatencySummary> result = new LinkedHashMap<>();
+        for (Operation operation : Operation.values()) {
+            result.put(operation.name(), summarize(latencies[operation.ordinal()]));
+        }
+        return result;
+    }
+
+    @Override
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    @Override
+    public long getRecordsLoaded() {
+        return recordsLoaded.sum();
+    }
+
+    @Override
+    public String dump() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-14s %10s %10s %10s %10s %10s %10s %10s%n",
+            "operation (us)", "count", "mean", "p50", "p90", "p99", "p99.9", "max"));
+        for (Map.Entry<String, LatencySummary> entry : getLatencies().entrySet()) {
+            LatencySummary s = entry.getValue();
+            if (s.getCount() == 0) {
+                continue;
+            }
+            sb.append(String.format("%-14s %10d %10.1f %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+                entry.getKey().toLowerCase(Locale.ROOT), s.getCount(), s.getMean(), s.getP50(),
+                s.getP90(), s.getP99(), s.getP999(), s.getMax()));
+        }
+        sb.append(String.format("bytes read %,d, bytes written %,d, records loaded %,d%n",
+            getBytesRead(), getBytesWritten(), getRecordsLoaded()));
+        sb.append(StudentLog.summary()).append(System.lineSeparator());
+        return sb.toString();
+    }
+
+    @Override
+    public void reset() {
+        for (LatencyHistogram histogram : latencies) {
+            histogram.reset();
+        }
+        bytesRead.reset();
+        bytesWritten.reset();
+        recordsLoaded.reset();
+    }
+
+    private static LatencySummary summarize(LatencyHistogram h) {
+        return new LatencySummary(h.count(), h.mean() / 1e3, h.valueAtPercentile(50) / 1e3,
+            h.valueAtPercentile(90) / 1e3, h.valueAtPercentile(99) / 1e3, h.valueAtPercentile(99.9) / 1e3,
+            h.max() / 1e3);
+    }
+
+    // One operation's latency distribution in microseconds (a JMX composite)
+    public static final class LatencySummary {
+        private final long count;
+        private final double mean;
+        private final double p50;
+        private final double p90;
+        private final double p99;
+        private final double p999;
+        private final double max;
+
+        @ConstructorProperties({"count", "mean", "p50", "p90", "p99", "p999", "max"})
+        public LatencySummary(long count, double mean, double p50, double p90, double p99, double p999, double max) {
+            this.count = count;
+            this.mean = mean;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+            this.p999 = p999;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getMean() {
+            return mean;
+        }
+
+        public double getP50() {
+            return p50;
+        }
+
+        public double getP90() {
+            return p90;
+        }
+
+        public double getP99() {
+            return p99;
+        }
+
+        public double getP999() {
+            return p999;
+        }
+
+        public double getMax() {
+            return max;
+        }
+    }
+}
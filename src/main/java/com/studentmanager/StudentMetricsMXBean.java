@@ -0,0 +1,20 @@
+package com.studentmanager;
+
+import java.util.Map;
+
+// JMX view of StudentMetrics, registered as com.studentmanager:type=Metrics.
+// Latencies are in microseconds.
+public interface StudentMetricsMXBean {
+    Map<String, StudentMetrics.LatencySummary> getLatencies();
+
+    long getBytesRead();
+
+    long getBytesWritten();
+
+    long getRecordsLoaded();
+
+    // Same text as the dump command
+    String dump();
+
+    void reset();
+}
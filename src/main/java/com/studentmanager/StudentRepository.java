@@ -0,0 +1,342 @@
+package com.studentmanager;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+
+// Thread-safe student dataset for work that runs off the event thread: batch
+// imports, reporting and remote requests can all use one repository at once.
+//
+// Records are split by roll number over a power-of-two number of stripes, each
+// an ordinary StudentStore guarded by its own StampedLock. Writers lock only
+// the stripe they touch, so writes to different stripes run in parallel, and
+// no lock is ever held across I/O. Point reads (contains, findByRoll) are
+// optimistic: they read without locking and only retake the read under the
+// stripe's read lock when a write raced with them. Queries served by the name
+// and marks indexes take the read lock of each stripe in turn.
+//
+// Operations spanning stripes (size, sums, queries) see each stripe
+// consistently but not all stripes at one instant. snapshot() is the
+// exception: it sees every stripe at the same instant, yet holds the locks
+// only for the O(1) store snapshots, so saves and exports never stall edits.
+public class StudentRepository {
+    private static final int MAX_STRIPES = 64;
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+
+    public StudentRepository() {
+        this(Runtime.getRuntime().availableProcessors() * 2);
+    }
+
+    public StudentRepository(int concurrency) {
+        int count = 1;
+        while (count < Math.min(Math.max(concurrency, 1), MAX_STRIPES)) {
+            count <<= 1;
+        }
+        stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe();
+        }
+        stripeMask = count - 1;
+    }
+
+    public int size() {
+        int total = 0;
+        for (Stripe stripe : stripes) {
+            total += stripe.read(StudentStore::size);
+        }
+        return total;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public boolean contains(int rollNumber) {
+        return stripeFor(rollNumber).read(store -> store.contains(rollNumber));
+    }
+
+    public Student findByRoll(int rollNumber) {
+        return stripeFor(rollNumber).read(store -> store.findByRoll(rollNumber));
+    }
+
+    // Adds the student unless the roll number is already taken
+    public boolean add(Student student) {
+        return add(student.getRollNumber(), student.getName(), student.getMarks());
+    }
+
+    public boolean add(int rollNumber, String name, double marks) {
+        return stripeFor(rollNumber).write(store -> store.add(rollNumber, name, marks));
+    }
+
+    // Replaces name and marks of an existing record; false when the roll is unknown
+    public boolean update(int rollNumber, String name, double marks) {
+        return stripeFor(rollNumber).write(store -> store.update(rollNumber, name, marks));
+    }
+
+    // Removes and returns the record with this roll number, or null
+    public Student remove(int rollNumber) {
+        return stripeFor(rollNumber).write(store -> store.remove(rollNumber));
+    }
+
+    // Adds every record of source, taking each stripe's write lock once for
+    // all of its records. Duplicate roll numbers are skipped; returns how
+    // many were added.
+    public int addAll(StudentStore source) {
+        int n = source.size();
+        // Bucket source positions by stripe (counting sort)
+        int[] starts = new int[stripes.length + 1];
+        int[] stripeOf = new int[n];
+        for (int i = 0; i < n; i++) {
+            stripeOf[i] = stripeIndex(source.rollAt(i));
+            starts[stripeOf[i] + 1]++;
+        }
+        for (int s = 0; s < stripes.length; s++) {
+            starts[s + 1] += starts[s];
+        }
+        int[] fill = Arrays.copyOf(starts, stripes.length);
+        int[] positions = new int[n];
+        for (int i = 0; i < n; i++) {
+            positions[fill[stripeOf[i]]++] = i;
+        }
+
+        int added = 0;
+        for (int s = 0; s < stripes.length; s++) {
+            int from = starts[s];
+            int to = starts[s + 1];
+            if (from == to) {
+                continue;
+            }
+            added += stripes[s].write(store -> {
+                store.ensureCapacity(store.size() + to - from);
+                int count = 0;
+                for (int i = from; i < to; i++) {
+                    int position = positions[i];
+                    if (store.add(source.rollAt(position), source.nameAt(position), source.marksAt(position))) {
+                        count++;
+                    }
+                }
+                return count;
+            });
+        }
+        return added;
+    }
+
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            stripe.write(store -> {
+                store.clear();
+                stripe.indexed = false;
+                return 0;
+            });
+        }
+    }
+
+    // Sum of all marks, for the dashboard average
+    public double sumMarks() {
+        double sum = 0;
+        for (Stripe stripe : stripes) {
+            sum += stripe.readLocked(StudentStore::sumMarks);
+        }
+        return sum;
+    }
+
+    // Competition rank by marks (1 = best), or -1 when the roll is unknown
+    public int rankOf(int rollNumber) {
+        Student student = findByRoll(rollNumber);
+        if (student == null) {
+            return -1;
+        }
+        double above = Math.nextUp(student.getMarks());
+        int rank = 1;
+        for (Stripe stripe : stripes) {
+            rank += stripe.queryIndexes(store -> store.countMarksBetween(above, Double.POSITIVE_INFINITY));
+        }
+        return rank;
+    }
+
+    // Number of students with low <= marks <= high
+    public int countMarksBetween(double low, double high) {
+        int count = 0;
+        for (Stripe stripe : stripes) {
+            count += stripe.queryIndexes(store -> store.countMarksBetween(low, high));
+        }
+        return count;
+    }
+
+    // The k best students, highest marks first and lower roll first on ties
+    public Student[] topStudents(int k) {
+        Student[] best = new Student[0];
+        for (Stripe stripe : stripes) {
+            Student[] candidates = stripe.queryIndexes(store -> {
+                int[] rolls = store.topRolls(k);
+                Student[] found = new Student[rolls.length];
+                for (int i = 0; i < rolls.length; i++) {
+                    found[i] = store.findByRoll(rolls[i]);
+                }
+                return found;
+            });
+            best = mergeTop(best, candidates, k);
+        }
+        return best;
+    }
+
+    // Up to limit students whose name contains query (or starts with it, when
+    // prefixOnly), ignoring case
+    public Student[] searchNames(String query, boolean prefixOnly, int limit) {
+        Student[] found = new Student[0];
+        for (Stripe stripe : stripes) {
+            int wanted = limit - found.length;
+            if (wanted <= 0) {
+                break;
+            }
+            Student[] matches = stripe.queryIndexes(store -> {
+                int[] rolls = store.searchNames(query, prefixOnly, wanted);
+                Student[] students = new Student[rolls.length];
+                for (int i = 0; i < rolls.length; i++) {
+                    students[i] = store.findByRoll(rolls[i]);
+                }
+                return students;
+            });
+            int previous = found.length;
+            found = Arrays.copyOf(found, previous + matches.length);
+            System.arraycopy(matches, 0, found, previous, matches.length);
+        }
+        return found;
+    }
+
+    // Copy of every record in one plain store, e.g. for saving or export. The
+    // stripes are locked together just long enough to snapshot each one; the
+    // records are then merged on the caller's thread with no lock held.
+    public StudentStore snapshot() {
+        StudentStore[] views = new StudentStore[stripes.length];
+        long[] stamps = new long[stripes.length];
+        for (int i = 0; i < stripes.length; i++) {
+            // Taking a snapshot marks the store's columns shared, so it is a write
+            stamps[i] = stripes[i].lock.writeLock();
+        }
+        try {
+            for (int i = 0; i < stripes.length; i++) {
+                views[i] = stripes[i].store.snapshot();
+            }
+        } finally {
+            for (int i = stripes.length - 1; i >= 0; i--) {
+                stripes[i].lock.unlockWrite(stamps[i]);
+            }
+        }
+
+        int total = 0;
+        for (StudentStore view : views) {
+            total += view.size();
+        }
+        StudentStore snapshot = StudentStore.configured();
+        snapshot.ensureCapacity(total);
+        for (StudentStore view : views) {
+            for (int i = 0, n = view.size(); i < n; i++) {
+                snapshot.add(view.rollAt(i), view.nameAt(i), view.marksAt(i));
+            }
+        }
+        return snapshot;
+    }
+
+    private Stripe stripeFor(int rollNumber) {
+        return stripes[stripeIndex(rollNumber)];
+    }
+
+    private int stripeIndex(int rollNumber) {
+        // Rolls are often sequential; mix them so neighbours land on different stripes
+        int h = rollNumber * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & stripeMask;
+    }
+
+    private static Student[] mergeTop(Student[] a, Student[] b, int k) {
+        Student[] merged = new Student[Math.min(a.length + b.length, Math.max(k, 0))];
+        int i = 0;
+        int j = 0;
+        for (int n = 0; n < merged.length; n++) {
+            if (j >= b.length || (i < a.length && ranksBefore(a[i], b[j]))) {
+                merged[n] = a[i++];
+            } else {
+                merged[n] = b[j++];
+            }
+        }
+        return merged;
+    }
+
+    private static boolean ranksBefore(Student a, Student b) {
+        int c = Double.compare(b.getMarks(), a.getMarks());
+        return c != 0 ? c < 0 : a.getRollNumber() < b.getRollNumber();
+    }
+
+    private interface StoreFunction<T> {
+        T apply(StudentStore store);
+    }
+
+    private static final class Stripe {
+        final StampedLock lock = new StampedLock();
+        final StudentStore store = StudentStore.configured();
+        // Set once the store's name and marks indexes exist, so queries only
+        // read them; guarded by the lock
+        boolean indexed;
+
+        // Optimistic read: run the reader without locking and keep the result
+        // only if no write happened meanwhile. A racing write can leave the
+        // reader looking at a half-updated store, which may also surface as a
+        // runtime exception; either way the read is repeated under the lock.
+        <T> T read(StoreFunction<T> reader) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp != 0) {
+                try {
+                    T result = reader.apply(store);
+                    if (lock.validate(stamp)) {
+                        return result;
+                    }
+                } catch (RuntimeException torn) {
+                    if (lock.validate(stamp)) {
+                        throw torn;
+                    }
+                }
+            }
+            return readLocked(reader);
+        }
+
+        <T> T readLocked(StoreFunction<T> reader) {
+            long stamp = lock.readLock();
+            try {
+                return reader.apply(store);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        // Read through the name or marks index, building both first if needed.
+        // The flag is checked under the read lock because clear() drops the
+        // indexes, and building them is a write.
+        <T> T queryIndexes(StoreFunction<T> reader) {
+            while (true) {
+                long stamp = lock.readLock();
+                try {
+                    if (indexed) {
+                        return reader.apply(store);
+                    }
+                } finally {
+                    lock.unlockRead(stamp);
+                }
+                write(s -> {
+                    s.buildIndexes();
+                    indexed = true;
+                    return 0;
+                });
+            }
+        }
+
+        <T> T write(StoreFunction<T> writer) {
+            long stamp = lock.writeLock();
+            try {
+                return writer.apply(store);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+    }
+}
@@ -0,0 +1,627 @@
+package com.studentmanager;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Shared in-memory record store used by both the GUI and the console manager.
+// Records are kept column by column: parallel primitive arrays for roll numbers
+// and marks, and one UTF-8 byte arena for names, so there is no per-record
+// object and full scans run over flat arrays. A RollIndex maps each roll number
+// to its position, so lookups, duplicate checks and deletes are O(1).
+//
+// Student objects handed out by get(), findByRoll() and students() are detached
+// views built on demand; changes go back through update().
+//
+// The columns and the roll index live on the heap by default. With
+// -Dstudentmanager.storage=mapped they are memory-mapped files instead (in
+// -Dstudentmanager.storageDir, default the temp directory), so very large
+// cohorts keep the heap small. The name and marks indexes stay on the heap
+// and are only built when a name search or rank query needs them.
+//
+// snapshot() hands out a read-only view of the records as they are at that
+// moment, for saves, exports and reports that run while editing continues.
+// The view shares the columns copy-on-write and the name arena as it stands
+// (edits only append to it), so it costs O(1) on the heap.
+public class StudentStore {
+    static final String STORAGE_PROPERTY = "studentmanager.storage";
+    static final String STORAGE_DIR_PROPERTY = "studentmanager.storageDir";
+
+    // Orders offered by sortedPositions(); ties on name or marks go by roll number
+    public enum SortKey { ROLL, NAME, MARKS }
+
+    private static final int INITIAL_CAPACITY = 16;
+    // Compact the name arena once dead bytes pass this share of it
+    private static final int MIN_COMPACT_BYTES = 64 * 1024;
+
+    private final Columns columns;
+    private Columns.Ints rolls;
+    private Columns.Doubles marks;
+    private Columns.Ints nameOffsets;
+    private Columns.Ints nameLengths;
+    private Columns.Bytes nameBytes;
+    private int nameBytesUsed;
+    private int nameBytesDead;
+    // A snapshot reads nameBytes below its own nameBytesUsed, so the arena
+    // may not be rewritten in place, only appended to
+    private boolean nameBytesShared;
+    private int size;
+    private RollIndex rollIndex;
+    private final boolean readOnly;
+    // Built on the first name search, then kept in step with every change
+    private NameIndex nameIndex;
+    // Built on the first rank or range query, then kept in step like nameIndex
+    private MarksIndex marksIndex;
+    // Built the first time the store is viewed sorted by roll or name
+    private SortIndex rollOrder;
+    private SortIndex nameOrder;
+
+    public StudentStore() {
+        this(Columns.HEAP);
+    }
+
+    StudentStore(Columns columns) {
+        this.columns = columns;
+        this.rolls = columns.ints(INITIAL_CAPACITY);
+        this.marks = columns.doubles(INITIAL_CAPACITY);
+        this.nameOffsets = columns.ints(INITIAL_CAPACITY);
+        this.nameLengths = columns.ints(INITIAL_CAPACITY);
+        this.nameBytes = columns.bytes(INITIAL_CAPACITY * 16);
+        this.rollIndex = new RollIndex(columns);
+        this.readOnly = false;
+    }
+
+    private StudentStore(StudentStore source) {
+        this.columns = source.columns;
+        this.rolls = source.rolls.snapshot();
+        this.marks = source.marks.snapshot();
+        this.nameOffsets = source.nameOffsets.snapshot();
+        this.nameLengths = source.nameLengths.snapshot();
+        this.nameBytes = source.nameBytes;
+        this.nameBytesUsed = source.nameBytesUsed;
+        this.nameBytesDead = source.nameBytesDead;
+        this.size = source.size;
+        this.rollIndex = source.rollIndex.snapshot();
+        this.readOnly = true;
+        source.nameBytesShared = true;
+    }
+
+    // Store whose records live in memory-mapped files in directory
+    public static StudentStore mapped(File directory) {
+        return new StudentStore(Columns.mapped(directory));
+    }
+
+    // Heap or mapped store, as picked by -Dstudentmanager.storage
+    public static StudentStore configured() {
+        String storage = System.getProperty(STORAGE_PROPERTY, "heap");
+        if (storage.equalsIgnoreCase("mapped")) {
+            return mapped(new File(System.getProperty(STORAGE_DIR_PROPERTY, System.getProperty("java.io.tmpdir"))));
+        }
+        if (!storage.equalsIgnoreCase("heap")) {
+            throw new IllegalArgumentException("Unknown " + STORAGE_PROPERTY + ": " + storage);
+        }
+        return new StudentStore();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public Student get(int position) {
+        checkPosition(position);
+        return new Student(rolls.get(position), nameAt(position), marks.get(position));
+    }
+
+    public int rollAt(int position) {
+        checkPosition(position);
+        return rolls.get(position);
+    }
+
+    public double marksAt(int position) {
+        checkPosition(position);
+        return marks.get(position);
+    }
+
+    public String nameAt(int position) {
+        checkPosition(position);
+        return nameBytes.decode(nameOffsets.get(position), nameLengths.get(position));
+    }
+
+    public boolean contains(int rollNumber) {
+        return rollIndex.containsKey(rollNumber);
+    }
+
+    // Position of the record with this roll number, or -1 when absent
+    public int indexOf(int rollNumber) {
+        return rollIndex.get(rollNumber);
+    }
+
+    public Student findByRoll(int rollNumber) {
+        int position = rollIndex.get(rollNumber);
+        return position == RollIndex.ABSENT ? null : get(position);
+    }
+
+    // Adds the student unless the roll number is already taken
+    public boolean add(Student student) {
+        return add(student.getRollNumber(), student.getName(), student.getMarks());
+    }
+
+    public boolean add(int rollNumber, String name, double studentMarks) {
+        checkWritable();
+        if (rollIndex.containsKey(rollNumber)) {
+            return false;
+        }
+        if (size == rolls.length()) {
+            grow(size + 1);
+        }
+        rolls.set(size, rollNumber);
+        marks.set(size, studentMarks);
+        storeName(size, name);
+        rollIndex.put(rollNumber, size);
+        size++;
+        if (nameIndex != null) {
+            nameIndex.added(rollNumber, name);
+        }
+        if (marksIndex != null) {
+            marksIndex.insert(studentMarks, rollNumber);
+        }
+        sortOrdersAdded(rollNumber);
+        return true;
+    }
+
+    // Appends count records given as columns, with names as consecutive UTF-8
+    // byte runs. Duplicate roll numbers are skipped; returns how many were added.
+    int addColumns(int[] newRolls, double[] newMarks, int[] newNameLengths, byte[] newNames, int count) {
+        checkWritable();
+        ensureCapacity(size + count);
+        int offset = nameBytesUsed;
+        int total = 0;
+        for (int i = 0; i < count; i++) {
+            total += newNameLengths[i];
+        }
+        ensureNameBytes(total);
+        nameBytes.put(offset, newNames, 0, total);
+        nameBytesUsed += total;
+
+        int added = 0;
+        for (int i = 0; i < count; i++) {
+            int length = newNameLengths[i];
+            if (rollIndex.containsKey(newRolls[i])) {
+                nameBytesDead += length;
+            } else {
+                rolls.set(size, newRolls[i]);
+                marks.set(size, newMarks[i]);
+                nameOffsets.set(size, offset);
+                nameLengths.set(size, length);
+                rollIndex.put(newRolls[i], size);
+                size++;
+                added++;
+                if (nameIndex != null) {
+                    nameIndex.added(newRolls[i], nameAt(size - 1));
+                }
+                if (marksIndex != null) {
+                    marksIndex.insert(newMarks[i], newRolls[i]);
+                }
+                sortOrdersAdded(newRolls[i]);
+            }
+            offset += length;
+        }
+        return added;
+    }
+
+    // Appends the records of source at positions[0..count), or at its first
+    // count positions when positions is null, copying names as UTF-8 bytes.
+    // Duplicate roll numbers are skipped; returns how many were added.
+    int addFrom(StudentStore source, int[] positions, int count) {
+        int[] newRolls = new int[count];
+        double[] newMarks = new double[count];
+        int[] newNameLengths = new int[count];
+        int total = 0;
+        for (int i = 0; i < count; i++) {
+            int position = positions == null ? i : positions[i];
+            newRolls[i] = source.rollAt(position);
+            newMarks[i] = source.marksAt(position);
+            newNameLengths[i] = source.nameLengthAt(position);
+            total += newNameLengths[i];
+        }
+        ByteBuffer newNames = ByteBuffer.allocate(total);
+        for (int i = 0; i < count; i++) {
+            source.copyNameBytes(positions == null ? i : positions[i], newNames);
+        }
+        return addColumns(newRolls, newMarks, newNameLengths, newNames.array(), count);
+    }
+
+    int nameLengthAt(int position) {
+        checkPosition(position);
+        return nameLengths.get(position);
+    }
+
+    // Copies the UTF-8 bytes of a name without decoding them
+    void copyNameBytes(int position, ByteBuffer out) {
+        checkPosition(position);
+        nameBytes.copyTo(nameOffsets.get(position), nameLengths.get(position), out);
+    }
+
+    // Replaces name and marks of an existing record; false when the roll is unknown
+    public boolean update(int rollNumber, String name, double studentMarks) {
+        checkWritable();
+        int position = rollIndex.get(rollNumber);
+        if (position == RollIndex.ABSENT) {
+            return false;
+        }
+        double oldMarks = marks.get(position);
+        if (marksIndex != null && Double.compare(oldMarks, studentMarks) != 0) {
+            marksIndex.delete(oldMarks, rollNumber);
+            marksIndex.insert(studentMarks, rollNumber);
+        }
+        marks.set(position, studentMarks);
+        String oldName = nameIndex != null ? nameAt(position) : null;
+        if (nameOrder != null) {
+            nameOrder.delete(rollNumber);
+        }
+        nameBytesDead += nameLengths.get(position);
+        storeName(position, name);
+        if (nameIndex != null) {
+            nameIndex.renamed(rollNumber, oldName, name);
+        }
+        if (nameOrder != null) {
+            nameOrder.insert(rollNumber);
+        }
+        compactNamesIfNeeded();
+        return true;
+    }
+
+    // Removes the record with this roll number. To stay O(1) the last record is
+    // moved into the freed position, so callers mirroring positions (the table)
+    // must move their last row the same way.
+    public Student remove(int rollNumber) {
+        checkWritable();
+        if (nameOrder != null && rollIndex.containsKey(rollNumber)) {
+            // The name order looks names up, so leave it while the record is still here
+            nameOrder.delete(rollNumber);
+        }
+        int position = rollIndex.remove(rollNumber);
+        if (position == RollIndex.ABSENT) {
+            return null;
+        }
+        Student removed = get(position);
+        nameBytesDead += nameLengths.get(position);
+        int last = size - 1;
+        if (position != last) {
+            int lastRoll = rolls.get(last);
+            rolls.set(position, lastRoll);
+            marks.set(position, marks.get(last));
+            nameOffsets.set(position, nameOffsets.get(last));
+            nameLengths.set(position, nameLengths.get(last));
+            rollIndex.put(lastRoll, position);
+        }
+        size--;
+        compactNamesIfNeeded();
+        if (nameIndex != null) {
+            nameIndex.removed(removed.getName());
+        }
+        if (marksIndex != null) {
+            marksIndex.delete(removed.getMarks(), rollNumber);
+        }
+        if (rollOrder != null) {
+            rollOrder.delete(rollNumber);
+        }
+        return removed;
+    }
+
+    public void clear() {
+        checkWritable();
+        if (nameBytesShared) {
+            nameBytes = columns.bytes(INITIAL_CAPACITY * 16);
+            nameBytesShared = false;
+        }
+        size = 0;
+        nameBytesUsed = 0;
+        nameBytesDead = 0;
+        rollIndex.clear();
+        nameIndex = null;
+        marksIndex = null;
+        rollOrder = null;
+        nameOrder = null;
+    }
+
+    // Roll numbers of up to limit students whose name contains query (or starts
+    // with it, when prefixOnly), ignoring case
+    public int[] searchNames(String query, boolean prefixOnly, int limit) {
+        if (nameIndex == null) {
+            nameIndex = new NameIndex(this);
+        }
+        return nameIndex.search(query, prefixOnly, limit);
+    }
+
+    // Builds the name and marks indexes now rather than on the first query, so
+    // later queries only read; used when queries may run concurrently
+    void buildIndexes() {
+        if (nameIndex == null) {
+            nameIndex = new NameIndex(this);
+        }
+        marksIndex();
+    }
+
+    // Competition rank by marks (1 = best, equal marks share a rank), or -1 when absent
+    public int rankOf(int rollNumber) {
+        int position = rollIndex.get(rollNumber);
+        if (position == RollIndex.ABSENT) {
+            return -1;
+        }
+        return size - marksIndex().countAtMost(marks.get(position)) + 1;
+    }
+
+    // Number of students with low <= marks <= high
+    public int countMarksBetween(double low, double high) {
+        return marksIndex().countBetween(low, high);
+    }
+
+    // Roll numbers of up to limit students with low <= marks <= high, lowest marks first
+    public int[] rollsWithMarksBetween(double low, double high, int limit) {
+        return marksIndex().rollsBetween(low, high, limit);
+    }
+
+    // Nearest-rank percentile of marks, p in [0, 100]; NaN for an empty store
+    public double percentile(double p) {
+        if (size == 0) {
+            return Double.NaN;
+        }
+        if (p < 0 || p > 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100: " + p);
+        }
+        int rank = (int) Math.ceil(p / 100.0 * size);
+        return marksIndex().selectMarks(Math.max(rank, 1) - 1);
+    }
+
+    // Roll numbers of the k best students, highest marks first
+    public int[] topRolls(int k) {
+        return marksIndex().topRolls(k);
+    }
+
+    // Positions of rows [offset, offset + limit) of the store sorted by key, so a
+    // table can fetch just the page it shows. Sorting by marks ascending puts
+    // the higher roll first on ties, so descending lists the lower roll first.
+    public int[] sortedPositions(SortKey key, boolean descending, int offset, int limit) {
+        if (offset < 0) {
+            throw new IndexOutOfBoundsException("Offset: " + offset);
+        }
+        int[] positions = new int[Math.max(0, Math.min(size - offset, limit))];
+        for (int i = 0; i < positions.length; i++) {
+            int index = descending ? size - 1 - (offset + i) : offset + i;
+            int roll;
+            switch (key) {
+                case ROLL: roll = rollOrder().selectRoll(index); break;
+                case NAME: roll = nameOrder().selectRoll(index); break;
+                default: roll = marksIndex().selectRoll(index);
+            }
+            positions[i] = rollIndex.get(roll);
+        }
+        return positions;
+    }
+
+    // Row of the student in the store sorted by key, or -1 when absent
+    public int sortedRowOf(SortKey key, boolean descending, int rollNumber) {
+        int position = rollIndex.get(rollNumber);
+        if (position == RollIndex.ABSENT) {
+            return -1;
+        }
+        int index;
+        switch (key) {
+            case ROLL: index = rollOrder().rankOf(rollNumber); break;
+            case NAME: index = nameOrder().rankOf(rollNumber); break;
+            default: index = marksIndex().countBefore(marks.get(position), rollNumber);
+        }
+        return descending ? size - 1 - index : index;
+    }
+
+    private void sortOrdersAdded(int rollNumber) {
+        if (rollOrder != null) {
+            rollOrder.insert(rollNumber);
+        }
+        if (nameOrder != null) {
+            nameOrder.insert(rollNumber);
+        }
+    }
+
+    private SortIndex rollOrder() {
+        if (rollOrder == null) {
+            int[] sorted = new int[size];
+            for (int i = 0; i < size; i++) {
+                sorted[i] = rolls.get(i);
+            }
+            Arrays.sort(sorted);
+            rollOrder = SortIndex.build(Integer::compare, sorted, size);
+        }
+        return rollOrder;
+    }
+
+    private SortIndex nameOrder() {
+        if (nameOrder == null) {
+            // Names repeat a lot, so sort the distinct ones once and then sort
+            // (name rank, roll) pairs packed into longs instead of comparing strings
+            String[] names = new String[size];
+            Map<String, Integer> ranks = new HashMap<>();
+            for (int i = 0; i < size; i++) {
+                names[i] = nameAt(i).toLowerCase(Locale.ROOT);
+                ranks.put(names[i], 0);
+            }
+            String[] distinct = ranks.keySet().toArray(new String[0]);
+            Arrays.sort(distinct);
+            for (int i = 0; i < distinct.length; i++) {
+                ranks.put(distinct[i], i);
+            }
+            long[] keys = new long[size];
+            for (int i = 0; i < size; i++) {
+                // Flipping the sign bit makes signed rolls sort as unsigned
+                keys[i] = ((long) ranks.get(names[i]) << 32) | ((rolls.get(i) ^ Integer.MIN_VALUE) & 0xFFFFFFFFL);
+            }
+            Arrays.sort(keys);
+            int[] sorted = new int[size];
+            for (int i = 0; i < size; i++) {
+                sorted[i] = (int) keys[i] ^ Integer.MIN_VALUE;
+            }
+            nameOrder = SortIndex.build(this::compareNames, sorted, size);
+        }
+        return nameOrder;
+    }
+
+    // Name order ignoring case, then roll number; both rolls must be present
+    private int compareNames(int rollA, int rollB) {
+        if (rollA == rollB) {
+            return 0;
+        }
+        int c = nameAt(rollIndex.get(rollA)).toLowerCase(Locale.ROOT)
+            .compareTo(nameAt(rollIndex.get(rollB)).toLowerCase(Locale.ROOT));
+        return c != 0 ? c : Integer.compare(rollA, rollB);
+    }
+
+    private MarksIndex marksIndex() {
+        if (marksIndex == null) {
+            int[] rollColumn = new int[size];
+            for (int i = 0; i < size; i++) {
+                rollColumn[i] = rolls.get(i);
+            }
+            marksIndex = MarksIndex.build(marksSnapshot(), rollColumn, size);
+        }
+        return marksIndex;
+    }
+
+    // Read-only view of the current contents that later edits do not change,
+    // e.g. for a background save. O(1) on the heap; mapped stores copy their
+    // columns. Like the store itself, a view is not safe for concurrent use
+    // by several threads at once (its indexes are built lazily).
+    public StudentStore snapshot() {
+        return new StudentStore(this);
+    }
+
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    public void ensureCapacity(int expectedSize) {
+        checkWritable();
+        if (expectedSize > rolls.length()) {
+            grow(expectedSize);
+        }
+        rollIndex.ensureCapacity(expectedSize);
+    }
+
+    // Sum of all marks in one pass over the marks column
+    public double sumMarks() {
+        Columns.Doubles column = marks;
+        double sum = 0;
+        for (int i = 0, n = size; i < n; i++) {
+            sum += column.get(i);
+        }
+        return sum;
+    }
+
+    // Copy of the marks column in position order, for scans off the owning thread
+    public double[] marksSnapshot() {
+        double[] snapshot = new double[size];
+        for (int i = 0; i < size; i++) {
+            snapshot[i] = marks.get(i);
+        }
+        return snapshot;
+    }
+
+    // Read-only Student views in position order
+    public List<Student> students() {
+        return new AbstractList<Student>() {
+            @Override
+            public Student get(int index) {
+                return StudentStore.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private void checkPosition(int position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("Position: " + position + ", Size: " + size);
+        }
+    }
+
+    private void checkWritable() {
+        if (readOnly) {
+            throw new UnsupportedOperationException("Store snapshots are read-only");
+        }
+    }
+
+    private void grow(int minCapacity) {
+        int capacity = Math.max(minCapacity, rolls.length() + (rolls.length() >> 1));
+        rolls = rolls.grow(size, capacity);
+        marks = marks.grow(size, capacity);
+        nameOffsets = nameOffsets.grow(size, capacity);
+        nameLengths = nameLengths.grow(size, capacity);
+    }
+
+    private void storeName(int position, String name) {
+        int length = name.length();
+        ensureNameBytes(length * 3);
+        int offset = nameBytesUsed;
+        int written = 0;
+        for (int i = 0; i < length; i++) {
+            char c = name.charAt(i);
+            if (c >= 0x80) {
+                // Non-ASCII names take the general encoder
+                byte[] encoded = name.getBytes(StandardCharsets.UTF_8);
+                nameBytes.put(offset, encoded, 0, encoded.length);
+                written = encoded.length;
+                break;
+            }
+            nameBytes.set(offset + written++, (byte) c);
+        }
+        nameOffsets.set(position, offset);
+        nameLengths.set(position, written);
+        nameBytesUsed += written;
+    }
+
+    private void ensureNameBytes(int extra) {
+        long needed = (long) nameBytesUsed + extra;
+        if (needed > nameBytes.length()) {
+            // Name offsets are ints, so the arena tops out at 2 GB
+            if (needed > Integer.MAX_VALUE - 8) {
+                throw new IllegalStateException("Name area is full");
+            }
+            long capacity = Math.max(needed, nameBytes.length() + (long) (nameBytes.length() >> 1));
+            nameBytes = nameBytes.grow(nameBytesUsed, (int) Math.min(capacity, Integer.MAX_VALUE - 8));
+            nameBytesShared = false;
+        }
+    }
+
+    // Rewrites live names back to back once updates and deletes have left enough holes
+    private void compactNamesIfNeeded() {
+        if (nameBytesDead < MIN_COMPACT_BYTES || nameBytesDead < nameBytesUsed / 2) {
+            return;
+        }
+        Columns.Bytes compacted = columns.bytes(Math.max(nameBytesUsed - nameBytesDead, INITIAL_CAPACITY)
+            + (nameBytes.length() >> 3));
+        int used = 0;
+        for (int i = 0; i < size; i++) {
+            int length = nameLengths.get(i);
+            nameBytes.copyTo(nameOffsets.get(i), compacted, used, length);
+            nameOffsets.set(i, used);
+            used += length;
+        }
+        nameBytes = compacted;
+        nameBytesShared = false;
+        nameBytesUsed = used;
+        nameBytesDead = 0;
+    }
+}
@@ -0,0 +1,148 @@
+package com.studentmanager;
+
+import javax.swing.event.TableModelEvent;
+import javax.swing.table.AbstractTableModel;
+
+// Table model that reads cells straight from the StudentStore instead of
+// holding its own copy of every row. Callers report each change with the
+// matching row event so the JTable repaints only what moved.
+//
+// Rows are in store order until sortBy() is called. Sorting is done by the
+// store's sorted views: the model fetches the page of positions around the
+// rows being painted and keeps it until the next change, so neither a sort
+// nor a scroll touches more than one page of records.
+class StudentTableModel extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+
+    private static final String[] COLUMNS = {"Roll Number", "Student Name", "Marks"};
+    private static final StudentStore.SortKey[] SORT_KEYS = {
+        StudentStore.SortKey.ROLL, StudentStore.SortKey.NAME, StudentStore.SortKey.MARKS
+    };
+    // Sorted rows fetched from the store at a time
+    static final int PAGE_SIZE = 128;
+    private static final int[] NO_PAGE = new int[0];
+
+    private final StudentStore store;
+    private StudentStore.SortKey sortKey; // null while in store order
+    private boolean descending;
+    // Store positions of rows [pageStart, pageStart + page.length) in sorted order
+    private int pageStart;
+    private int[] page = NO_PAGE;
+
+    StudentTableModel(StudentStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public int getRowCount() {
+        return store.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        if (sortKey != SORT_KEYS[column]) {
+            return COLUMNS[column];
+        }
+        return COLUMNS[column] + (descending ? " \u25BC" : " \u25B2");
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        switch (column) {
+            case 0: return Integer.class;
+            case 2: return Double.class;
+            default: return String.class;
+        }
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        int position = positionAt(row);
+        switch (column) {
+            case 0: return store.rollAt(position);
+            case 1: return store.nameAt(position);
+            default: return store.marksAt(position);
+        }
+    }
+
+    // Sorts by the column, ascending first; sorting by the same column again
+    // reverses it. The first sort by a column builds the store's order for it,
+    // which is done here rather than in the middle of painting.
+    void sortBy(int column) {
+        StudentStore.SortKey key = SORT_KEYS[column];
+        descending = key == sortKey && !descending;
+        sortKey = key;
+        fireTableDataChanged();
+        if (getRowCount() > 0) {
+            positionAt(0);
+        }
+    }
+
+    // Store position shown in the table row
+    int positionAt(int row) {
+        if (sortKey == null) {
+            return row;
+        }
+        if (row < pageStart || row >= pageStart + page.length) {
+            pageStart = row - row % PAGE_SIZE;
+            page = store.sortedPositions(sortKey, descending, pageStart, PAGE_SIZE);
+        }
+        return page[row - pageStart];
+    }
+
+    // Table row showing the store position
+    int rowOf(int position) {
+        return sortKey == null ? position : store.sortedRowOf(sortKey, descending, store.rollAt(position));
+    }
+
+    // Every change can move sorted rows, so the cached page goes
+    @Override
+    public void fireTableChanged(TableModelEvent e) {
+        page = NO_PAGE;
+        super.fireTableChanged(e);
+    }
+
+    // Record was appended to the store at position
+    void rowAdded(int position) {
+        int row = rowOf(position);
+        fireTableRowsInserted(row, row);
+    }
+
+    // Record at position changed; oldRow is rowOf(position) from before the
+    // change. A sorted row that moved is deleted and inserted again, so only
+    // the rows involved repaint and the selection follows the table's rules.
+    void rowUpdated(int position, int oldRow) {
+        int row = rowOf(position);
+        if (row == oldRow) {
+            fireTableRowsUpdated(row, row);
+        } else {
+            fireTableRowsDeleted(oldRow, oldRow);
+            fireTableRowsInserted(row, row);
+        }
+    }
+
+    // Record was removed from the store; oldRow is rowOf(position) from before
+    // the removal. The store moved its former last record (lastPosition) into
+    // position, so in store order that slot changed and the tail is gone; in
+    // sorted order the moved record keeps its row and only oldRow goes.
+    void rowRemoved(int position, int lastPosition, int oldRow) {
+        if (sortKey != null) {
+            fireTableRowsDeleted(oldRow, oldRow);
+            return;
+        }
+        if (position != lastPosition) {
+            fireTableRowsUpdated(position, position);
+        }
+        fireTableRowsDeleted(lastPosition, lastPosition);
+    }
+}
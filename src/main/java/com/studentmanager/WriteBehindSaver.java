@@ -0,0 +1,263 @@
+package com.studentmanager;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+// Moves saves off the thread that edits the data (the Swing EDT in the GUI).
+// The owner marks each change dirty; once the dirty count reaches the threshold
+// or the flush interval elapses, the pending state is captured on the owner
+// thread and handed to a single persistence thread to write. Changes made while
+// a write is running are coalesced into the next capture.
+//
+// A caller that must know when its change is on disk marks it with
+// markDirtyAwaited. Such changes are flushed groupCommitMillis after the first
+// of them rather than after the full interval, so every change arriving in
+// that window, or while the previous write runs, goes out in one write (one
+// group commit) and all their futures complete together.
+//
+// All methods except the listener callbacks must be called on the owner thread.
+class WriteBehindSaver {
+    public static final long DEFAULT_INTERVAL_MILLIS = 2000;
+    public static final int DEFAULT_THRESHOLD = 100;
+
+    // Work captured on the owner thread, written on the persistence thread. A
+    // write that fails must leave what it captured to be captured again.
+    interface PendingWrite {
+        void write() throws IOException;
+    }
+
+    interface Capture {
+        PendingWrite capture();
+    }
+
+    // Called on the owner thread
+    interface Listener {
+        void pendingChanged(boolean pending);
+
+        void writeFailed(IOException e);
+    }
+
+    private final Capture capture;
+    private final Executor owner;
+    private final Listener listener;
+    private final long intervalMillis;
+    private final int threshold;
+    private final long groupCommitMillis;
+    private final ScheduledExecutorService persistence = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "student-persistence");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private int dirty;
+    private boolean writing;
+    private boolean closed;
+    private ScheduledFuture<?> timer;
+    // Completed by the write that includes the changes marked so far
+    private List<CompletableFuture<Void>> waiters = new ArrayList<>();
+
+    WriteBehindSaver(Capture capture, Executor owner, Listener listener, long intervalMillis, int threshold) {
+        this(capture, owner, listener, intervalMillis, threshold, intervalMillis);
+    }
+
+    WriteBehindSaver(Capture capture, Executor owner, Listener listener, long intervalMillis, int threshold,
+            long groupCommitMillis) {
+        this.capture = capture;
+        this.owner = owner;
+        this.listener = listener;
+        this.intervalMillis = intervalMillis;
+        this.threshold = Math.max(1, threshold);
+        this.groupCommitMillis = Math.min(groupCommitMillis, intervalMillis);
+    }
+
+    void markDirty() {
+        if (closed) {
+            throw new IllegalStateException("Saver is closed");
+        }
+        if (dirty++ == 0 && !writing) {
+            listener.pendingChanged(true);
+        }
+        if (dirty >= threshold) {
+            flush();
+        } else {
+            armTimer();
+        }
+    }
+
+    // Marks a change like markDirty; the future completes once a write that
+    // includes it has finished, or exceptionally when that write fails
+    CompletableFuture<Void> markDirtyAwaited() {
+        if (closed) {
+            throw new IllegalStateException("Saver is closed");
+        }
+        CompletableFuture<Void> written = new CompletableFuture<>();
+        waiters.add(written);
+        markDirty();
+        return written;
+    }
+
+    boolean hasPendingChanges() {
+        return dirty > 0 || writing;
+    }
+
+    // Starts writing everything marked so far, unless a write is already running;
+    // in that case the changes go out with the next one
+    void flush() {
+        if (dirty == 0 || closed) {
+            return;
+        }
+        if (writing) {
+            // writeFinished picks up awaited changes the moment the write ends
+            if (waiters.isEmpty()) {
+                armTimer();
+            }
+            return;
+        }
+        submit(takeCapture());
+    }
+
+    // Durable barrier: returns once every change marked so far is written
+    void flushAndWait() throws IOException {
+        final PendingWrite last = dirty > 0 ? takeCapture() : null;
+        try {
+            // The persistence thread runs tasks in order, so this also waits for earlier writes
+            persistence.submit(() -> {
+                if (last != null) {
+                    last.write();
+                }
+                return null;
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            retryLater(last);
+            throw new IOException("Interrupted while waiting for pending saves", e);
+        } catch (ExecutionException e) {
+            retryLater(last);
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Pending save failed", e.getCause());
+        }
+        if (!writing) {
+            listener.pendingChanged(false);
+        }
+    }
+
+    // Writes everything still pending and stops the persistence thread
+    void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            flushAndWait();
+        } finally {
+            closed = true;
+            persistence.shutdown();
+        }
+    }
+
+    // A captured write that failed, or may not have run, put back what it
+    // took; marks it dirty again so the next flush or close captures it
+    private void retryLater(PendingWrite failed) {
+        if (failed != null && dirty == 0) {
+            dirty = 1;
+        }
+    }
+
+    private PendingWrite takeCapture() {
+        dirty = 0;
+        if (timer != null) {
+            timer.cancel(false);
+            timer = null;
+        }
+        final PendingWrite write = capture.capture();
+        if (waiters.isEmpty()) {
+            return write;
+        }
+        final List<CompletableFuture<Void>> group = waiters;
+        waiters = new ArrayList<>();
+        return () -> {
+            try {
+                write.write();
+            } catch (IOException | RuntimeException e) {
+                for (CompletableFuture<Void> written : group) {
+                    written.completeExceptionally(e);
+                }
+                throw e;
+            }
+            for (CompletableFuture<Void> written : group) {
+                written.complete(null);
+            }
+        };
+    }
+
+    private void submit(PendingWrite write) {
+        writing = true;
+        persistence.execute(() -> {
+            IOException failure = null;
+            boolean finished = false;
+            try {
+                write.write();
+                finished = true;
+            } catch (IOException e) {
+                failure = e;
+            } catch (RuntimeException e) {
+                failure = new IOException("Save failed: " + e, e);
+            } finally {
+                // Always hand back, or writing would stay set and no save start again
+                final IOException error = finished || failure != null ? failure : new IOException("Save failed");
+                owner.execute(() -> writeFinished(error));
+            }
+        });
+    }
+
+    private void writeFinished(IOException error) {
+        writing = false;
+        if (error != null) {
+            // The capture puts back what it took; this retries it with the next write
+            dirty++;
+            listener.writeFailed(error);
+        }
+        if (closed) {
+            return;
+        }
+        if (dirty >= threshold || !waiters.isEmpty()) {
+            flush();
+        } else if (dirty > 0) {
+            armTimer();
+        } else if (!writing) {
+            listener.pendingChanged(false);
+        }
+    }
+
+    // Schedules a flush after the interval, or after the group commit window
+    // while a caller waits on a change
+    private void armTimer() {
+        if (closed) {
+            return;
+        }
+        long delay = waiters.isEmpty() ? intervalMillis : groupCommitMillis;
+        if (timer != null) {
+            if (timer.getDelay(TimeUnit.MILLISECONDS) <= delay) {
+                return;
+            }
+            timer.cancel(false);
+        }
+        final ScheduledFuture<?>[] self = new ScheduledFuture<?>[1];
+        self[0] = persistence.schedule(() -> owner.execute(() -> {
+            if (timer == self[0]) {
+                timer = null;
+                flush();
+            }
+        }), delay, TimeUnit.MILLISECONDS);
+        timer = self[0];
+    }
+}
@@ -0,0 +1,98 @@
+package com.studentmanager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BinarySnapshotTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void roundTripsAwkwardRecords() throws Exception {
+        char[] longName = new char[(1 << 20) + 100];
+        Arrays.fill(longName, 'x');
+        StudentStore store = new StudentStore();
+        store.add(500, "Ann Lee", 75.25);
+        store.add(-40, "Cy, \"Ng\"", 1.0 / 3);
+        store.add(Integer.MAX_VALUE, "", -0.0);
+        store.add(Integer.MIN_VALUE, "Zoë Ångström", Double.NaN);
+        store.add(7, new String(longName), 1e300);
+        File file = folder.newFile();
+        BinarySnapshot.write(store, file);
+
+        StudentStore loaded = new StudentStore();
+        FastStudentLoader.LoadReport report = BinarySnapshot.load(file, loaded);
+        assertEquals(store.size(), report.loaded);
+        assertEquals(CompactSnapshotTest.records(store), CompactSnapshotTest.records(loaded));
+    }
+
+    @Test
+    public void roundTripsAnEmptyStore() throws Exception {
+        File file = folder.newFile();
+        BinarySnapshot.write(new StudentStore(), file);
+        assertEquals(0, BinarySnapshot.load(file, new StudentStore()).loaded);
+    }
+
+    @Test
+    public void rejectsTruncatedAndPaddedFiles() throws Exception {
+        File file = snapshotOfTwo();
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        for (int length = 0; length < bytes.length; length++) {
+            Files.write(file.toPath(), Arrays.copyOf(bytes, length));
+            expectRejected(file, "truncated to " + length + " bytes");
+        }
+        Files.write(file.toPath(), bytes);
+        Files.write(file.toPath(), new byte[] {0}, StandardOpenOption.APPEND);
+        expectRejected(file, "with a trailing byte");
+    }
+
+    // Name lengths that do not add up to the header's name byte count
+    @Test
+    public void rejectsAMismatchedNameTable() throws Exception {
+        File file = snapshotOfTwo();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            // Lengths follow the 24-byte header, two rolls and two marks;
+            // "Ann Lee" (7) becomes 9, two bytes more than the table holds
+            raf.seek(BinarySnapshot.HEADER_BYTES + 2 * 4 + 2 * 8);
+            raf.write(9);
+        }
+        expectRejected(file, "whose name lengths do not match the header");
+    }
+
+    @Test
+    public void rejectsOtherFiles() throws Exception {
+        File file = snapshotOfTwo();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.write('X');
+        }
+        expectRejected(file, "with the wrong magic");
+    }
+
+    private File snapshotOfTwo() throws IOException {
+        StudentStore store = new StudentStore();
+        store.add(1, "Ann Lee", 50);
+        store.add(2, "Bo Li", 60);
+        File file = folder.newFile();
+        BinarySnapshot.write(store, file);
+        return file;
+    }
+
+    private static void expectRejected(File file, String what) {
+        try {
+            BinarySnapshot.load(file, new StudentStore());
+            fail("Loaded a snapshot " + what);
+        } catch (IOException expected) {
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.studentmanager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class CohortStatisticsTest {
+    // NaN marks fall in no band and are never the top scorer, minimum or
+    // maximum, however the column is split between tasks
+    @Test
+    public void nanMarksAreLeftOutOfBandsAndExtremes() {
+        int size = 100000;
+        double[] marks = new double[size];
+        int[] rolls = new int[size];
+        Arrays.fill(marks, Double.NaN);
+        for (int i = 0; i < size; i++) {
+            rolls[i] = i + 1;
+        }
+        marks[size - 1] = 95;
+        marks[size - 2] = 40;
+
+        CohortStatistics stats = CohortStatistics.compute(marks.clone(), rolls, 50);
+        assertEquals(size, stats.count);
+        assertEquals(size - 1, stats.topPosition);
+        assertEquals(40, stats.min, 0);
+        assertEquals(95, stats.max, 0);
+        assertEquals(1, stats.passed);
+        assertEquals(1, stats.bandCount(0));
+        assertEquals(1, stats.bandCount(CohortStatistics.GRADE_BANDS.length - 1));
+    }
+
+    @Test
+    public void onlyNanMarksHaveNoTopScorer() {
+        double[] marks = {Double.NaN, Double.NaN};
+        CohortStatistics stats = CohortStatistics.compute(marks, new int[] {1, 2}, 50);
+        assertEquals(-1, stats.topPosition);
+        assertTrue(Double.isNaN(stats.min) && Double.isNaN(stats.max));
+        assertEquals(0, stats.bandCount(0));
+    }
+}
@@ -0,0 +1,130 @@
+package com.studentmanager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CompactSnapshotTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // Rolls out of order (negative deltas, extremes), marks that need the raw
+    // double form, names with no space, several spaces or non-ASCII text
+    @Test
+    public void roundTripsAwkwardRecords() throws Exception {
+        StudentStore store = new StudentStore();
+        store.add(500, "Ann Lee", 75.25);
+        store.add(3, "Bo", 0.1);
+        store.add(-40, "Cy Ng Tan", 1.0 / 3);
+        store.add(Integer.MAX_VALUE, "", -0.0);
+        store.add(Integer.MIN_VALUE, " Leading space", Double.NaN);
+        store.add(7, "Zoë Ångström", Double.POSITIVE_INFINITY);
+        store.add(8, "Ann Ng", 1e300);
+        store.add(9, "Bo Lee", -12.5);
+        assertRoundTrip(store);
+    }
+
+    @Test
+    public void roundTripsNamesLongerThanTheBuffer() throws Exception {
+        char[] first = new char[(1 << 20) + 100];
+        Arrays.fill(first, 'x');
+        char[] last = new char[3 << 20];
+        Arrays.fill(last, 'y');
+        StudentStore store = new StudentStore();
+        store.add(1, "Ann Lee", 50);
+        store.add(2, new String(first) + " " + new String(last), 60);
+        store.add(3, new String(first), 70); // the long first part again, now from the dictionary
+        assertRoundTrip(store);
+    }
+
+    // Past the dictionary cap new parts stay literal on both sides, while
+    // earlier ones are still referenced
+    @Test
+    public void roundTripsPastTheDictionaryCap() throws Exception {
+        StudentStore store = new StudentStore();
+        int roll = 0;
+        for (int i = 0; i < 70000; i++) {
+            store.add(roll++, "F" + i + " Lee", i % 101);
+        }
+        for (int i = 0; i < 70000; i += 997) {
+            store.add(roll++, "F" + i + " L" + i, 1);
+        }
+        assertRoundTrip(store);
+    }
+
+    @Test
+    public void rejectsTruncatedFiles() throws Exception {
+        StudentStore store = new StudentStore();
+        store.add(1, "Ann Lee", 50);
+        store.add(2, "Bo Li", 1.0 / 3);
+        store.add(3, "Ann Li", 70);
+        File file = folder.newFile();
+        CompactSnapshot.write(store, file);
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        for (int length = 0; length < bytes.length; length++) {
+            Files.write(file.toPath(), Arrays.copyOf(bytes, length));
+            expectRejected(file, "truncated to " + length + " bytes");
+        }
+    }
+
+    @Test
+    public void rejectsTrailingBytes() throws Exception {
+        StudentStore store = new StudentStore();
+        store.add(1, "Ann Lee", 50);
+        File file = folder.newFile();
+        CompactSnapshot.write(store, file);
+        Files.write(file.toPath(), new byte[] {0}, StandardOpenOption.APPEND);
+        expectRejected(file, "with a trailing byte");
+    }
+
+    @Test
+    public void rejectsANegativeCount() throws Exception {
+        File file = folder.newFile();
+        CompactSnapshot.write(new StudentStore(), file);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(8);
+            raf.write(new byte[] {-1, -1, -1, -1});
+        }
+        expectRejected(file, "with a negative count");
+    }
+
+    private void assertRoundTrip(StudentStore store) throws IOException {
+        File file = folder.newFile();
+        CompactSnapshot.write(store, file);
+        StudentStore loaded = new StudentStore();
+        FastStudentLoader.LoadReport report = CompactSnapshot.load(file, loaded);
+        assertEquals(store.size(), report.loaded);
+        assertEquals(0, report.rejected);
+        assertEquals(records(store), records(loaded));
+    }
+
+    private static void expectRejected(File file, String what) {
+        try {
+            CompactSnapshot.load(file, new StudentStore());
+            fail("Loaded a snapshot " + what);
+        } catch (IOException expected) {
+        }
+    }
+
+    // Marks compared by bits, so -0.0 and NaN must survive exactly
+    static List<String> records(StudentStore store) {
+        List<String> records = new ArrayList<>();
+        for (int i = 0; i < store.size(); i++) {
+            records.add(store.rollAt(i) + "," + store.nameAt(i) + ","
+                + Long.toHexString(Double.doubleToRawLongBits(store.marksAt(i))));
+        }
+        return records;
+    }
+}
@@ -0,0 +1,183 @@
+package com.studentmanager;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+// Queries checked against a sorted list of (marks, roll) keys. Marks come
+// from a handful of values, so most of them are duplicates tied by roll.
+public class MarksIndexTest {
+    private final Random random = new Random(3);
+
+    @Test
+    public void randomEditsMatchSortedOracle() {
+        MarksIndex index = new MarksIndex(4);
+        List<double[]> oracle = new ArrayList<>(); // {marks, roll}, in index order
+        for (int i = 0; i < 5000; i++) {
+            int roll = random.nextInt(400);
+            int at = find(oracle, roll);
+            if (at >= 0 && random.nextBoolean()) {
+                double[] key = oracle.remove(at);
+                assertEquals(true, index.delete(key[0], roll));
+            } else if (at < 0) {
+                double mark = randomMark();
+                index.insert(mark, roll);
+                oracle.add(new double[] {mark, roll});
+                oracle.sort(MarksIndexTest::compare);
+            }
+            if (i % 50 == 0) {
+                check(index, oracle);
+            }
+        }
+        check(index, oracle);
+    }
+
+    @Test
+    public void buildMatchesSortedOracle() {
+        int count = 3000;
+        double[] marks = new double[count];
+        int[] rolls = new int[count];
+        List<double[]> oracle = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            marks[i] = randomMark();
+            rolls[i] = i * 7 % count; // not in roll order
+            oracle.add(new double[] {marks[i], rolls[i]});
+        }
+        oracle.sort(MarksIndexTest::compare);
+        MarksIndex index = MarksIndex.build(marks, rolls, count);
+        check(index, oracle);
+        // Still a valid treap for later edits
+        index.delete(oracle.get(10)[0], (int) oracle.remove(10)[1]);
+        index.insert(55, count);
+        oracle.add(new double[] {55, count});
+        oracle.sort(MarksIndexTest::compare);
+        check(index, oracle);
+    }
+
+    // Equal marks rank by the competition rule; percentiles are nearest-rank
+    @Test
+    public void storeRanksAndPercentilesMatchSortedOracle() {
+        StudentStore store = new StudentStore();
+        List<double[]> oracle = new ArrayList<>();
+        for (int roll = 1; roll <= 1000; roll++) {
+            double mark = randomMark();
+            store.add(roll, "Student " + roll, mark);
+            oracle.add(new double[] {mark, roll});
+        }
+        for (int roll = 1; roll <= 1000; roll += 4) {
+            store.remove(roll);
+            oracle.remove(find(oracle, roll));
+        }
+        oracle.sort(MarksIndexTest::compare);
+        int n = oracle.size();
+        for (double p = 0; p <= 100; p += 2.5) {
+            int rank = Math.max((int) Math.ceil(p / 100 * n), 1);
+            assertEquals(oracle.get(rank - 1)[0], store.percentile(p), 0);
+        }
+        for (double[] key : oracle) {
+            int better = 0;
+            for (double[] other : oracle) {
+                if (other[0] > key[0]) {
+                    better++;
+                }
+            }
+            assertEquals(better + 1, store.rankOf((int) key[1]));
+        }
+        assertEquals(-1, store.rankOf(1));
+        assertArrayEquals(topRolls(oracle, 25), store.topRolls(25));
+        assertEquals(countBetween(oracle, 20, 60), store.countMarksBetween(20, 60));
+        assertArrayEquals(rollsBetween(oracle, 20, 60, 50), store.rollsWithMarksBetween(20, 60, 50));
+    }
+
+    private void check(MarksIndex index, List<double[]> oracle) {
+        int n = oracle.size();
+        assertEquals(n, index.size());
+        for (int i = 0; i < n; i++) {
+            assertEquals(oracle.get(i)[0], index.selectMarks(i), 0);
+            assertEquals((int) oracle.get(i)[1], index.selectRoll(i));
+        }
+        for (int k = 0; k < 20; k++) {
+            double mark = randomMark();
+            int roll = random.nextInt(400);
+            assertEquals(countBefore(oracle, mark, roll), index.countBefore(mark, roll));
+            assertEquals(countBefore(oracle, mark, Integer.MAX_VALUE), index.countBelow(mark));
+            assertEquals(countBetween(oracle, Double.NEGATIVE_INFINITY, mark), index.countAtMost(mark));
+            double high = mark + random.nextInt(40);
+            assertEquals(countBetween(oracle, mark, high), index.countBetween(mark, high));
+            assertEquals(0, index.countBetween(high + 1, mark));
+            int limit = random.nextInt(100);
+            assertArrayEquals(rollsBetween(oracle, mark, high, limit), index.rollsBetween(mark, high, limit));
+        }
+        assertArrayEquals(topRolls(oracle, 30), index.topRolls(30));
+    }
+
+    // Whole and half marks, plus a few with more decimals
+    private double randomMark() {
+        double mark = random.nextInt(21) * 5;
+        switch (random.nextInt(4)) {
+            case 0: return mark + 0.5;
+            case 1: return mark + 0.125;
+            default: return mark;
+        }
+    }
+
+    // Index order: marks ascending, then roll descending
+    private static int compare(double[] a, double[] b) {
+        int c = Double.compare(a[0], b[0]);
+        return c != 0 ? c : Double.compare(b[1], a[1]);
+    }
+
+    private static int find(List<double[]> oracle, int roll) {
+        for (int i = 0; i < oracle.size(); i++) {
+            if (oracle.get(i)[1] == roll) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int countBefore(List<double[]> oracle, double mark, int roll) {
+        int count = 0;
+        for (double[] key : oracle) {
+            if (compare(key, new double[] {mark, roll}) < 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static int countBetween(List<double[]> oracle, double low, double high) {
+        int count = 0;
+        for (double[] key : oracle) {
+            if (key[0] >= low && key[0] <= high) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static int[] rollsBetween(List<double[]> oracle, double low, double high, int limit) {
+        List<Integer> rolls = new ArrayList<>();
+        for (double[] key : oracle) {
+            if (key[0] >= low && key[0] <= high && rolls.size() < limit) {
+                rolls.add((int) key[1]);
+            }
+        }
+        return rolls.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    // Highest marks first, lower roll first on ties: the oracle read backwards
+    private static int[] topRolls(List<double[]> oracle, int k) {
+        int count = Math.min(k, oracle.size());
+        int[] rolls = new int[count];
+        for (int i = 0; i < count; i++) {
+            rolls[i] = (int) oracle.get(oracle.size() - 1 - i)[1];
+        }
+        return rolls;
+    }
+}
@@ -0,0 +1,69 @@
+package com.studentmanager;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+// Random operations checked against a HashMap
+public class RollIndexTest {
+    private final Random random = new Random(42);
+
+    // Keys whose home slots are the last two and the first of a 16-slot
+    // table, so probe runs are collision chains that wrap past the end and
+    // hold entries at home both before and after the wrap; eight keys stay
+    // under the resize threshold, so the table never grows
+    @Test
+    public void collidingKeysThatWrapAround() {
+        List<Integer> keys = new ArrayList<>();
+        for (int roll = 0; keys.size() < 8; roll++) {
+            int home = RollIndex.hash(roll) & 15;
+            if (home >= 14 || home == 0) {
+                keys.add(roll);
+            }
+        }
+        RollIndex index = new RollIndex();
+        exercise(index, keys, 20000);
+    }
+
+    @Test
+    public void randomKeysThroughRehashes() {
+        List<Integer> keys = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            keys.add(random.nextInt());
+        }
+        exercise(new RollIndex(), keys, 200000);
+    }
+
+    private void exercise(RollIndex index, List<Integer> keys, int operations) {
+        Map<Integer, Integer> oracle = new HashMap<>();
+        for (int i = 0; i < operations; i++) {
+            int roll = keys.get(random.nextInt(keys.size()));
+            int expected = oracle.containsKey(roll) ? oracle.get(roll) : RollIndex.ABSENT;
+            switch (random.nextInt(3)) {
+                case 0:
+                    int position = random.nextInt(1 << 20);
+                    assertEquals(expected, index.put(roll, position));
+                    oracle.put(roll, position);
+                    break;
+                case 1:
+                    assertEquals(expected, index.remove(roll));
+                    oracle.remove(roll);
+                    break;
+                default:
+                    assertEquals(expected, index.get(roll));
+            }
+            assertEquals(oracle.size(), index.size());
+        }
+        // Every surviving key is still reachable after all the backward shifts
+        for (int roll : keys) {
+            Integer expected = oracle.get(roll);
+            assertEquals(expected == null ? RollIndex.ABSENT : expected, index.get(roll));
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.studentmanager;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+// The writer's output must be byte for byte what the PrintWriter over
+// StudentCsv.format it replaced wrote
+public class StudentCsvWriterTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void matchesFormatOnEdgeCases() throws Exception {
+        StudentStore store = new StudentStore();
+        double[] marks = {0, -0.0, 0.5, 0.01, 0.001, 1e-3, 9.99e-4, 1.0 / 3, 99.99, 100, 12.345, -7.25,
+            9999999.99, 1e7, 1.2345e7, 1e300, Double.MIN_VALUE, Double.MAX_VALUE, Double.NaN,
+            Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, 0.1 + 0.2, 1e-7};
+        String[] names = {"Ann Lee", "", "Lee, Ann", "Ann \"Al\" Lee", "\"", ",", "Zoë Ångström", "李小龍", "emoji 😀"};
+        int roll = Integer.MIN_VALUE;
+        for (int i = 0; i < marks.length; i++) {
+            store.add(roll, names[i % names.length], marks[i]);
+            roll = i == 0 ? Integer.MAX_VALUE : -i * 1000003;
+        }
+        assertSameBytes(store);
+    }
+
+    @Test
+    public void matchesFormatOnRandomRecords() throws Exception {
+        Random random = new Random(11);
+        StudentStore store = new StudentStore();
+        for (int i = 0; i < 50000; i++) {
+            double mark;
+            switch (random.nextInt(4)) {
+                case 0: mark = random.nextInt(10001) / 100.0; break;
+                case 1: mark = random.nextDouble() * 100; break;
+                case 2: mark = Double.longBitsToDouble(random.nextLong()); break;
+                default: mark = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(20) - 8);
+            }
+            String name = "Student " + i + (i % 7 == 0 ? ", Jr" : "") + (i % 11 == 0 ? " \"Q\"" : "");
+            store.add(random.nextInt(), name, mark);
+        }
+        // Several drains of the 1 MB buffer
+        assertSameBytes(store);
+    }
+
+    private void assertSameBytes(StudentStore store) throws Exception {
+        File file = folder.newFile();
+        StudentCsvWriter.write(store, file, FsyncPolicy.NONE);
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        try (PrintWriter writer = new PrintWriter(new OutputStreamWriter(expected, StandardCharsets.UTF_8))) {
+            for (Student student : store.students()) {
+                writer.println(StudentCsv.format(student));
+            }
+        }
+        assertArrayEquals(expected.toByteArray(), Files.readAllBytes(file.toPath()));
+    }
+}
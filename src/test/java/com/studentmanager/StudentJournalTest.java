@@ -0,0 +1,100 @@
+package com.studentmanager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class StudentJournalTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // A compaction that fails leaves its rotated journal; the next one must
+    // not replace it, or a crash before that one finishes loses its edits
+    @Test
+    public void failedCompactionKeepsEditsThroughTheNext() throws Exception {
+        File data = new File(folder.getRoot(), "students.txt");
+        // A non-empty directory where the snapshot's temp file goes makes every
+        // snapshot write fail, and survives the cleanup after the failure
+        File blocker = AtomicFiles.temporaryFor(data);
+        File pin = new File(blocker, "pin");
+        assertTrue(blocker.mkdir() && pin.createNewFile());
+
+        StudentStore store = new StudentStore();
+        StudentJournal journal = new StudentJournal(data, SnapshotFormat.CSV, 1);
+        journal.replay(store);
+        edit(journal, store, 1, "First Round", 50);
+        journal.compactIfNeeded(store);
+        edit(journal, store, 2, "Second Round", 60);
+        awaitCompaction(journal);
+        journal.compactIfNeeded(store);
+        journal.close(); // waits for the second compaction, which fails as well
+        assertFalse(data.exists());
+
+        // Restart as after a crash, with snapshots writable again: the rotated
+        // journal holds both rounds and is folded into the snapshot
+        assertTrue(pin.delete() && blocker.delete());
+        StudentStore reloaded = new StudentStore();
+        StudentJournal restarted = new StudentJournal(data, SnapshotFormat.CSV, 1);
+        assertEquals(2, restarted.replay(reloaded));
+        restarted.close();
+        assertEquals(2, reloaded.size());
+
+        StudentStore snapshot = new StudentStore();
+        SnapshotFormat.CSV.read(data, snapshot);
+        assertEquals(2, snapshot.size());
+        assertEquals("First Round", snapshot.findByRoll(1).getName());
+        assertEquals("Second Round", snapshot.findByRoll(2).getName());
+        assertFalse(new File(data.getPath() + ".journal.compacting").exists());
+    }
+
+    // A read-only replay sees an interrupted compaction's edits but leaves
+    // its files for the application that owns the journal
+    @Test
+    public void readOnlyReplayLeavesFilesAlone() throws Exception {
+        File data = new File(folder.getRoot(), "students.txt");
+        File rotated = new File(data.getPath() + ".journal.compacting");
+        File live = new File(data.getPath() + ".journal");
+        Files.write(data.toPath(), "1,Ann Lee,50.0\n".getBytes(StandardCharsets.UTF_8));
+        Files.write(rotated.toPath(), "A,2,Bo Li,60.0\n".getBytes(StandardCharsets.UTF_8));
+        Files.write(live.toPath(), "U,1,Ann Lee,70.0\n".getBytes(StandardCharsets.UTF_8));
+        long modified = data.lastModified();
+
+        StudentStore store = new StudentStore();
+        SnapshotFormat.CSV.read(data, store);
+        StudentJournal journal = new StudentJournal(data, SnapshotFormat.CSV, StudentJournal.DEFAULT_COMPACT_THRESHOLD);
+        assertEquals(2, journal.replayReadOnly(store));
+        journal.close();
+
+        assertEquals(70.0, store.findByRoll(1).getMarks(), 0);
+        assertEquals("Bo Li", store.findByRoll(2).getName());
+        assertTrue(rotated.exists() && live.exists());
+        assertEquals(modified, data.lastModified());
+        assertEquals(15, data.length());
+    }
+
+    private static void edit(StudentJournal journal, StudentStore store, int roll, String name, double marks)
+            throws IOException {
+        Student student = new Student(roll, name, marks);
+        store.add(student);
+        journal.recordAdd(student);
+        journal.flush();
+    }
+
+    // With a threshold of one byte, a journal holding entries needs compaction
+    // exactly when none is running
+    private static void awaitCompaction(StudentJournal journal) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!journal.needsCompaction() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
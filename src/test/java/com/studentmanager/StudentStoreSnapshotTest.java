@@ -0,0 +1,120 @@
+package com.studentmanager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+// Snapshots must not see edits made to the live store after they were taken,
+// on the heap and in memory-mapped columns alike
+@RunWith(Parameterized.class)
+public class StudentStoreSnapshotTest {
+    @Parameters(name = "{0}")
+    public static List<Object[]> storage() {
+        return Arrays.asList(new Object[][] {{"heap"}, {"mapped"}});
+    }
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final String storage;
+    private final Random random = new Random(17);
+
+    public StudentStoreSnapshotTest(String storage) {
+        this.storage = storage;
+    }
+
+    @Test
+    public void snapshotIgnoresLaterEdits() throws Exception {
+        StudentStore store = newStore();
+        for (int roll = 1; roll <= 200; roll++) {
+            store.add(roll, "Student " + roll, random.nextInt(101));
+        }
+        StudentStore first = store.snapshot();
+        List<String> firstRecords = records(store);
+        first.percentile(50); // build the snapshot's indexes before the edits
+
+        edit(store, 1);
+        assertEquals(firstRecords, records(first));
+        checkLookups(first, firstRecords);
+
+        StudentStore second = store.snapshot();
+        List<String> secondRecords = records(store);
+        edit(store, 2);
+        store.clear();
+        store.add(1, "Replaced", 1);
+
+        assertEquals(firstRecords, records(first));
+        assertEquals(secondRecords, records(second));
+        checkLookups(first, firstRecords);
+        checkLookups(second, secondRecords);
+    }
+
+    @Test
+    public void snapshotIsReadOnly() throws Exception {
+        StudentStore store = newStore();
+        store.add(1, "Ann Lee", 50);
+        StudentStore snapshot = store.snapshot();
+        assertTrue(snapshot.isReadOnly());
+        try {
+            snapshot.add(2, "Bo Li", 60);
+            fail("Snapshots are read-only");
+        } catch (UnsupportedOperationException expected) {
+        }
+    }
+
+    private StudentStore newStore() throws Exception {
+        return storage.equals("mapped") ? StudentStore.mapped(folder.newFolder()) : new StudentStore();
+    }
+
+    // Updates with longer names (new name bytes), removals (the last record
+    // moves into the gap) and enough adds to grow every column
+    private void edit(StudentStore store, int round) {
+        for (int roll = 1; roll <= 200; roll += 3) {
+            if (store.contains(roll)) {
+                store.update(roll, "Renamed in round " + round + " " + roll, random.nextInt(101));
+            }
+        }
+        for (int roll = 2; roll <= 200; roll += 5) {
+            store.remove(roll);
+        }
+        for (int roll = 1000 * round; roll < 1000 * round + 500; roll++) {
+            store.add(roll, "Added " + roll, random.nextInt(101));
+        }
+    }
+
+    private static List<String> records(StudentStore store) {
+        List<String> records = new ArrayList<>();
+        for (int i = 0; i < store.size(); i++) {
+            records.add(store.rollAt(i) + "," + store.nameAt(i) + "," + store.marksAt(i));
+        }
+        return records;
+    }
+
+    private static void checkLookups(StudentStore snapshot, List<String> expected) {
+        double[] marks = new double[expected.size()];
+        for (int i = 0; i < expected.size(); i++) {
+            String[] fields = expected.get(i).split(",");
+            int roll = Integer.parseInt(fields[0]);
+            assertEquals(i, snapshot.indexOf(roll));
+            assertEquals(fields[1], snapshot.findByRoll(roll).getName());
+            marks[i] = Double.parseDouble(fields[2]);
+        }
+        assertNull(snapshot.findByRoll(1500));
+        Arrays.sort(marks);
+        assertEquals(marks[marks.length / 2 - 1], snapshot.percentile(50), 0);
+        assertEquals(marks[marks.length - 1], snapshot.percentile(100), 0);
+    }
+}
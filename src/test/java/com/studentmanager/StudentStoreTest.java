@@ -0,0 +1,67 @@
+package com.studentmanager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class StudentStoreTest {
+    // Random adds, updates and removals checked against a HashMap; removal
+    // moves the last record into the gap, so every position is rechecked
+    @Test
+    public void randomEditsKeepPositionsAndIndexInStep() {
+        Random random = new Random(7);
+        StudentStore store = new StudentStore();
+        Map<Integer, String> oracle = new HashMap<>();
+        for (int i = 0; i < 20000; i++) {
+            int roll = random.nextInt(500);
+            String name = "Student " + random.nextInt(1000);
+            double marks = random.nextInt(101);
+            switch (random.nextInt(4)) {
+                case 0:
+                case 1:
+                    boolean added = !oracle.containsKey(roll);
+                    assertEquals(added, store.add(roll, name, marks));
+                    if (added) {
+                        oracle.put(roll, name + "," + marks);
+                    }
+                    break;
+                case 2:
+                    boolean present = oracle.containsKey(roll);
+                    assertEquals(present, store.update(roll, name, marks));
+                    if (present) {
+                        oracle.put(roll, name + "," + marks);
+                    }
+                    break;
+                default:
+                    Student removed = store.remove(roll);
+                    String expected = oracle.remove(roll);
+                    if (expected == null) {
+                        assertNull(removed);
+                    } else {
+                        assertEquals(expected, removed.getName() + "," + removed.getMarks());
+                    }
+            }
+            if (i % 100 == 0) {
+                check(store, oracle);
+            }
+        }
+        check(store, oracle);
+    }
+
+    private static void check(StudentStore store, Map<Integer, String> oracle) {
+        assertEquals(oracle.size(), store.size());
+        for (int position = 0; position < store.size(); position++) {
+            int roll = store.rollAt(position);
+            assertEquals(position, store.indexOf(roll));
+            assertEquals(oracle.get(roll), store.nameAt(position) + "," + store.marksAt(position));
+        }
+        for (int roll = 0; roll < 500; roll++) {
+            assertEquals(oracle.containsKey(roll), store.contains(roll));
+        }
+    }
+}
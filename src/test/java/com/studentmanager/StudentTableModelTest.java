@@ -0,0 +1,65 @@
+package com.studentmanager;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.event.TableModelEvent;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class StudentTableModelTest {
+    private final StudentStore store = new StudentStore();
+    private final StudentTableModel model = new StudentTableModel(store);
+    private final List<String> events = new ArrayList<>();
+
+    @Before
+    public void fill() {
+        store.add(new Student(1, "Ann Lee", 50));
+        store.add(new Student(2, "Bo Li", 60));
+        store.add(new Student(3, "Cy Ng", 70));
+        model.sortBy(2); // by marks: rolls 1, 2, 3
+        model.addTableModelListener(e -> events.add(describe(e)));
+    }
+
+    // A sorted row that moves is deleted at its old row and inserted at its new one
+    @Test
+    public void movedRowIsDeletedAndInserted() {
+        int position = store.indexOf(1);
+        int oldRow = model.rowOf(position);
+        store.update(1, "Ann Lee", 80);
+        model.rowUpdated(position, oldRow);
+        assertEquals("[delete 0, insert 2]", events.toString());
+        assertEquals(1, model.getValueAt(2, 0));
+    }
+
+    @Test
+    public void rowThatStaysIsUpdated() {
+        int position = store.indexOf(2);
+        int oldRow = model.rowOf(position);
+        store.update(2, "Bo Li", 65);
+        model.rowUpdated(position, oldRow);
+        assertEquals("[update 1]", events.toString());
+    }
+
+    // The store moves its last record into the freed slot, but in sorted
+    // order only the removed record's row goes
+    @Test
+    public void removalDeletesOnlyTheSortedRow() {
+        int position = store.indexOf(1);
+        int oldRow = model.rowOf(position);
+        store.remove(1);
+        model.rowRemoved(position, store.size(), oldRow);
+        assertEquals("[delete 0]", events.toString());
+        assertEquals(2, model.getValueAt(0, 0));
+        assertEquals(3, model.getValueAt(1, 0));
+    }
+
+    private static String describe(TableModelEvent e) {
+        String type = e.getType() == TableModelEvent.DELETE ? "delete"
+            : e.getType() == TableModelEvent.INSERT ? "insert" : "update";
+        return type + " " + e.getFirstRow();
+    }
+}
@@ -0,0 +1,102 @@
+package com.studentmanager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class WriteBehindSaverTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final List<String> pending = new ArrayList<>();
+    private int failuresLeft;
+
+    // A flushAndWait whose write fails must leave its changes for close to write
+    @Test
+    public void closeWritesWhatAFailedFlushPutBack() throws Exception {
+        File file = new File(folder.getRoot(), "saved.txt");
+        WriteBehindSaver saver = new WriteBehindSaver(() -> capture(file), Runnable::run, new NoListener(),
+            60000, 1000);
+        pending.add("first");
+        saver.markDirty();
+        failuresLeft = 1;
+        try {
+            saver.flushAndWait();
+            fail("The write was set up to fail");
+        } catch (IOException expected) {
+        }
+        assertFalse(file.exists());
+
+        saver.close();
+        assertEquals("first\n", new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+    }
+
+    // Same with an unchecked failure, and an edit made after it
+    @Test
+    public void closeWritesAfterAnUncheckedFailure() throws Exception {
+        File file = new File(folder.getRoot(), "saved.txt");
+        WriteBehindSaver saver = new WriteBehindSaver(() -> capture(file), Runnable::run, new NoListener(),
+            60000, 1000);
+        pending.add("first");
+        saver.markDirty();
+        failuresLeft = -1;
+        try {
+            saver.flushAndWait();
+            fail("The write was set up to fail");
+        } catch (IOException expected) {
+        }
+        pending.add("second");
+        saver.markDirty();
+
+        saver.close();
+        assertEquals("first\nsecond\n", new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+    }
+
+    // Takes every pending line; puts them back if the write fails, as the
+    // application's captures do
+    private WriteBehindSaver.PendingWrite capture(File file) {
+        List<String> lines = new ArrayList<>(pending);
+        pending.clear();
+        return () -> {
+            try {
+                if (failuresLeft > 0) {
+                    failuresLeft--;
+                    throw new IOException("disk full");
+                }
+                if (failuresLeft < 0) {
+                    failuresLeft = 0;
+                    throw new IllegalStateException("broken column");
+                }
+                StringBuilder text = new StringBuilder();
+                for (String line : lines) {
+                    text.append(line).append('\n');
+                }
+                Files.write(file.toPath(), text.toString().getBytes(StandardCharsets.UTF_8));
+            } catch (IOException | RuntimeException e) {
+                pending.addAll(0, lines); // the test thread is blocked in flushAndWait
+                throw e;
+            }
+        };
+    }
+
+    private static final class NoListener implements WriteBehindSaver.Listener {
+        @Override
+        public void pendingChanged(boolean pending) {
+        }
+
+        @Override
+        public void writeFailed(IOException e) {
+        }
+    }
+}